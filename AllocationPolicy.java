@@ -0,0 +1,15 @@
+/**
+ * Chooses which of several free rooms of a type receives a booking.
+ */
+public enum AllocationPolicy {
+    /**
+     * Takes the free room that was added to the hotel first.
+     */
+    FIRST_FIT,
+
+    /**
+     * Prefers a free room that is booked on the night before check-in and on the night of
+     * check-out, so the stay fills a gap instead of splitting a longer free run.
+     */
+    BEST_FIT
+}
@@ -0,0 +1,268 @@
+import java.util.Arrays;
+
+/**
+ * Tracks which nights of a room are booked, keyed by epoch day.
+ * Each night is a single bit packed into long words, so a range of nights
+ * can be checked, booked or released one 64-day word at a time.
+ * The calendar grows in either direction as bookings fall outside its current span,
+ * up to the largest span a single array of words can address.
+ */
+public class AvailabilityCalendar {
+    private static final int MIN_WORDS = 8;
+    private static final int MAX_WORDS = Integer.MAX_VALUE - 8;
+
+    private long origin;
+    private long[] words;
+
+    /**
+     * Constructs an empty calendar with every night available.
+     */
+    public AvailabilityCalendar() {
+        this.words = new long[0];
+    }
+
+    /**
+     * Constructs a calendar from previously saved words.
+     *
+     * @param origin the epoch day of bit 0 of the first word, a multiple of 64
+     * @param words  the packed nights, bit set meaning booked
+     */
+    public AvailabilityCalendar(long origin, long[] words) {
+        this.origin = origin;
+        this.words = words;
+    }
+
+    /**
+     * Gets the epoch day of bit 0 of the first word.
+     *
+     * @return the origin of the calendar
+     */
+    public long getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Gets a copy of the packed nights, bit set meaning booked.
+     *
+     * @return a copy of the words of the calendar
+     */
+    public long[] getWords() {
+        return words.clone();
+    }
+
+    /**
+     * Checks if the night starting on the given epoch day is booked.
+     *
+     * @param day the epoch day of the night
+     * @return true if the night is booked, false otherwise
+     */
+    public boolean isBooked(long day) {
+        long bit = day - origin;
+        if (bit < 0 || bit >= (long) words.length << 6) {
+            return false;
+        }
+        return (words[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Checks if every night in the range [from, to) is free.
+     *
+     * @param from the epoch day of the first night
+     * @param to   the epoch day after the last night
+     * @return true if none of the nights are booked, false otherwise
+     */
+    public boolean isFree(long from, long to) {
+        long start = Math.max(from - origin, 0);
+        long end = Math.min(to - origin, (long) words.length << 6);
+        return start >= end || !anySet(words, 0, start, end);
+    }
+
+    /**
+     * Marks every night in the range [from, to) as booked.
+     *
+     * @param from the epoch day of the first night
+     * @param to   the epoch day after the last night
+     * @throws IllegalArgumentException if the calendar cannot span both its current nights and the range
+     */
+    public void book(long from, long to) {
+        if (from >= to) {
+            return;
+        }
+        ensureCovers(from, to);
+        setRange(words, 0, from - origin, to - origin);
+    }
+
+    /**
+     * Books each of several ranges whose nights are all still free, in the given order, so that a
+     * range overlapping an earlier booked one is refused. The calendar is grown once to cover every
+     * range and the ranges are then checked and booked in a single walk over its words.
+     *
+     * @param from the epoch days of the first nights
+     * @param to   the epoch days after the last nights
+     * @return for each range, true if it was booked and false if it was empty or any night was taken
+     * @throws IllegalArgumentException if the calendar cannot span both its current nights and the ranges
+     */
+    public boolean[] tryBook(long[] from, long[] to) {
+        boolean[] booked = new boolean[from.length];
+        long[] span = span(from, to);
+        if (span == null) {
+            return booked;
+        }
+        ensureCovers(span[0], span[1]);
+        for (int i = 0; i < from.length; i++) {
+            long start = from[i] - origin;
+            long end = to[i] - origin;
+            if (start < end && !anySet(words, 0, start, end)) {
+                setRange(words, 0, start, end);
+                booked[i] = true;
+            }
+        }
+        return booked;
+    }
+
+    /**
+     * Gets the first night and the day after the last night covered by the non-empty ranges,
+     * or null if every range is empty.
+     */
+    static long[] span(long[] from, long[] to) {
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        for (int i = 0; i < from.length; i++) {
+            if (from[i] < to[i]) {
+                start = Math.min(start, from[i]);
+                end = Math.max(end, to[i]);
+            }
+        }
+        return start < end ? new long[] {start, end} : null;
+    }
+
+    /**
+     * Marks every night in the range [from, to) as available again.
+     *
+     * @param from the epoch day of the first night
+     * @param to   the epoch day after the last night
+     */
+    public void release(long from, long to) {
+        long start = Math.max(from - origin, 0);
+        long end = Math.min(to - origin, (long) words.length << 6);
+        if (start < end) {
+            clearRange(words, 0, start, end);
+        }
+    }
+
+    /**
+     * Grows the word array so that the range [from, to) can be addressed.
+     *
+     * The new span is checked before anything changes, so a range that cannot be addressed
+     * leaves the calendar as it was.
+     *
+     * @param from the epoch day of the first night
+     * @param to   the epoch day after the last night
+     * @throws IllegalArgumentException if the calendar cannot span both its current nights and the range
+     */
+    private void ensureCovers(long from, long to) {
+        if (words.length == 0) {
+            long start = Math.floorDiv(from, 64) * 64;
+            words = new long[Math.max(MIN_WORDS, wordsFor(to - start))];
+            origin = start;
+            return;
+        }
+        long newOrigin = Math.min(origin, Math.floorDiv(from, 64) * 64);
+        long end = Math.max(origin + ((long) words.length << 6), to);
+        int needed = wordsFor(end - newOrigin);
+        if (newOrigin == origin && needed <= words.length) {
+            return;
+        }
+        words = grow(words, origin, newOrigin, needed);
+        origin = newOrigin;
+    }
+
+    /**
+     * Copies words into a larger array whose origin is the same or earlier, at least doubling
+     * its size so that repeated growth stays cheap.
+     *
+     * @param words     the words to copy
+     * @param origin    the epoch day of bit 0 of the words
+     * @param newOrigin the epoch day of bit 0 of the new array, a multiple of 64 no later than origin
+     * @param needed    the number of words the new array must have, as returned by wordsFor
+     * @return the new array
+     */
+    static long[] grow(long[] words, long origin, long newOrigin, int needed) {
+        long[] grown = new long[(int) Math.min(Math.max(needed, words.length * 2L), MAX_WORDS)];
+        System.arraycopy(words, 0, grown, (int) ((origin - newOrigin) >>> 6), words.length);
+        return grown;
+    }
+
+    /**
+     * Returns the number of words needed to hold the given number of nights,
+     * or throws IllegalArgumentException if that is more than one array can hold.
+     */
+    static int wordsFor(long nights) {
+        if (nights < 0 || nights > ((long) MAX_WORDS << 6)) {
+            throw new IllegalArgumentException("A calendar cannot span " + nights + " nights");
+        }
+        return (int) ((nights + 63) >>> 6);
+    }
+
+    /**
+     * Checks if any bit in the range [start, end) is set, relative to the word at offset.
+     *
+     * @param words  the packed bits
+     * @param offset the index of the word holding bit 0
+     * @param start  the first bit to check
+     * @param end    the bit after the last bit to check
+     * @return true if at least one bit in the range is set
+     */
+    static boolean anySet(long[] words, int offset, long start, long end) {
+        int first = offset + (int) (start >>> 6);
+        int last = offset + (int) ((end - 1) >>> 6);
+        long firstMask = -1L << start;
+        long lastMask = -1L >>> -end;
+        if (first == last) {
+            return (words[first] & firstMask & lastMask) != 0;
+        }
+        if ((words[first] & firstMask) != 0) {
+            return true;
+        }
+        for (int i = first + 1; i < last; i++) {
+            if (words[i] != 0) {
+                return true;
+            }
+        }
+        return (words[last] & lastMask) != 0;
+    }
+
+    /**
+     * Sets every bit in the range [start, end), relative to the word at offset.
+     */
+    static void setRange(long[] words, int offset, long start, long end) {
+        int first = offset + (int) (start >>> 6);
+        int last = offset + (int) ((end - 1) >>> 6);
+        long firstMask = -1L << start;
+        long lastMask = -1L >>> -end;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+            return;
+        }
+        words[first] |= firstMask;
+        Arrays.fill(words, first + 1, last, -1L);
+        words[last] |= lastMask;
+    }
+
+    /**
+     * Clears every bit in the range [start, end), relative to the word at offset.
+     */
+    static void clearRange(long[] words, int offset, long start, long end) {
+        int first = offset + (int) (start >>> 6);
+        int last = offset + (int) ((end - 1) >>> 6);
+        long firstMask = -1L << start;
+        long lastMask = -1L >>> -end;
+        if (first == last) {
+            words[first] &= ~(firstMask & lastMask);
+            return;
+        }
+        words[first] &= ~firstMask;
+        Arrays.fill(words, first + 1, last, 0L);
+        words[last] &= ~lastMask;
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Describes one change to a hotel, as published on a BookingEventBus.
+ * Event objects are preallocated in the bus and in each consumer and are overwritten
+ * in place, so publishing an event allocates nothing.
+ */
+public class BookingEvent {
+    private long sequence;
+    private BookingEventType type;
+    private String hotelName;
+    private String roomName;
+    private String previousName;
+    private String guestName;
+    private long reservationId;
+    private long checkIn;
+    private long checkOut;
+    private double amount;
+
+    /**
+     * Gets the position of the event in the stream, starting at 0.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the kind of change.
+     *
+     * @return the event type
+     */
+    public BookingEventType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the name of the hotel that changed.
+     *
+     * @return the hotel name
+     */
+    public String getHotelName() {
+        return hotelName;
+    }
+
+    /**
+     * Gets the name of the room involved.
+     *
+     * @return the room name, the new name of a renamed room, or null for a change to the whole hotel
+     */
+    public String getRoomName() {
+        return roomName;
+    }
+
+    /**
+     * Gets the name a renamed room had before.
+     *
+     * @return the previous room name, or null for other events
+     */
+    public String getPreviousName() {
+        return previousName;
+    }
+
+    /**
+     * Gets the name of the guest of a reservation event.
+     *
+     * @return the guest name, or null for other events
+     */
+    public String getGuestName() {
+        return guestName;
+    }
+
+    /**
+     * Gets the id of the reservation of a reservation event.
+     *
+     * @return the reservation id, or 0 for other events
+     */
+    public long getReservationId() {
+        return reservationId;
+    }
+
+    /**
+     * Gets the epoch day of check-in of a reservation event, or the first night of a rate change.
+     *
+     * @return the check-in epoch day, or 0 for other events
+     */
+    public long getCheckIn() {
+        return checkIn;
+    }
+
+    /**
+     * Gets the epoch day of check-out of a reservation event, or the day after the last night of a rate change.
+     *
+     * @return the check-out epoch day, or 0 for other events
+     */
+    public long getCheckOut() {
+        return checkOut;
+    }
+
+    /**
+     * Gets the amount of the event: the total price of a reservation, the new
+     * price per night or base price of a price change, or the multiplier of a rate change.
+     *
+     * @return the amount
+     */
+    public double getAmount() {
+        return amount;
+    }
+
+    /**
+     * Overwrites every value of the event.
+     */
+    void set(long sequence, BookingEventType type, String hotelName, String roomName, String previousName,
+             String guestName, long reservationId, long checkIn, long checkOut, double amount) {
+        this.sequence = sequence;
+        this.type = type;
+        this.hotelName = hotelName;
+        this.roomName = roomName;
+        this.previousName = previousName;
+        this.guestName = guestName;
+        this.reservationId = reservationId;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.amount = amount;
+    }
+
+    /**
+     * Copies every value of another event into this one.
+     */
+    void copyFrom(BookingEvent other) {
+        set(other.sequence, other.type, other.hotelName, other.roomName, other.previousName, other.guestName,
+                other.reservationId, other.checkIn, other.checkOut, other.amount);
+    }
+}
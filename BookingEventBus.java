@@ -0,0 +1,187 @@
+import java.io.Closeable;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams booking events from hotels to consumers through a preallocated ring buffer.
+ *
+ * Publishers claim a sequence number with a single atomic increment, overwrite the event
+ * in that slot and then publish the slot's sequence, so publishing never takes a lock,
+ * never allocates and never waits for consumers. Each consumer runs on its own thread,
+ * reads every event that is available in one batch, and idles with a short spin, yield
+ * and park when it has caught up.
+ *
+ * A consumer that falls more than the capacity behind loses the overwritten events.
+ * Each slot works as a sequence lock: its sequence is cleared before the event is
+ * rewritten and set again afterwards, so a consumer detects both events it missed
+ * entirely and an event overwritten while it was copying it, and reports them through
+ * BookingEventHandler.onOverrun.
+ */
+public class BookingEventBus implements Closeable {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+    private final ArrayList<Thread> consumers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a bus whose ring buffer holds the given number of events.
+     *
+     * @param capacity the number of events buffered, a power of two
+     * @throws IllegalArgumentException if the capacity is not a positive power of two
+     */
+    public BookingEventBus(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.ring = new Slot[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Slot();
+        }
+    }
+
+    /**
+     * Publishes an event. This never blocks, even if consumers are behind.
+     *
+     * @param type          the kind of change
+     * @param hotelName     the name of the hotel that changed
+     * @param roomName      the name of the room involved, or null
+     * @param previousName  the previous name of a renamed room, or null
+     * @param guestName     the name of the guest of a reservation, or null
+     * @param reservationId the id of a reservation, or 0
+     * @param checkIn       the check-in epoch day of a reservation or first night of a rate change, or 0
+     * @param checkOut      the check-out epoch day of a reservation or end of a rate change, or 0
+     * @param amount        the total price of a reservation, the new price of a price change,
+     *                      or the multiplier of a rate change
+     */
+    public void publish(BookingEventType type, String hotelName, String roomName, String previousName,
+                        String guestName, long reservationId, long checkIn, long checkOut, double amount) {
+        long sequence = cursor.getAndIncrement();
+        Slot slot = ring[(int) sequence & mask];
+        slot.sequence = -1;
+        VarHandle.storeStoreFence();
+        slot.event.set(sequence, type, hotelName, roomName, previousName, guestName, reservationId,
+                checkIn, checkOut, amount);
+        slot.sequence = sequence;
+    }
+
+    /**
+     * Starts a consumer thread that receives every event published from now on.
+     *
+     * @param name    the name of the consumer, used for its thread
+     * @param handler the handler the events are delivered to
+     */
+    public synchronized void subscribe(String name, BookingEventHandler handler) {
+        if (!running) {
+            throw new IllegalStateException("The event bus is closed");
+        }
+        long start = cursor.get();
+        Thread thread = new Thread(() -> consume(handler, start), "booking-events-" + name);
+        thread.setDaemon(true);
+        consumers.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Gets the number of events published so far.
+     *
+     * @return the number of published events
+     */
+    public long getPublishedCount() {
+        return cursor.get();
+    }
+
+    /**
+     * Stops the consumers once they have handled every event published before this call,
+     * and waits for them to finish.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            running = false;
+        }
+        for (Thread thread : consumers) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs a consumer: delivers events in batches until the bus is closed and drained.
+     */
+    private void consume(BookingEventHandler handler, long next) {
+        BookingEvent event = new BookingEvent();
+        int idle = 0;
+        while (true) {
+            long available = cursor.get();
+            if (next >= available) {
+                if (!running && next >= cursor.get()) {
+                    return;
+                }
+                idle = idle(idle);
+                continue;
+            }
+            if (available - next > ring.length) {
+                handler.onOverrun(available - ring.length - next);
+                next = available - ring.length;
+            }
+
+            Slot slot = ring[(int) next & mask];
+            long sequence = slot.sequence;
+            if (sequence < next) {
+                // Claimed but not yet written; the publisher is about to finish
+                idle = idle(idle);
+                continue;
+            }
+            if (sequence == next) {
+                event.copyFrom(slot.event);
+                VarHandle.loadLoadFence();
+                if (slot.sequence == next) {
+                    idle = 0;
+                    next++;
+                    handler.onEvent(event, next >= cursor.get());
+                    continue;
+                }
+            }
+            handler.onOverrun(1);
+            next++;
+        }
+    }
+
+    /**
+     * Waits a little while a consumer has nothing to read, backing off from spinning
+     * to yielding to parking.
+     *
+     * @return the updated count of consecutive idle rounds
+     */
+    private static int idle(int rounds) {
+        if (rounds < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (rounds < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return rounds + 1;
+    }
+
+    /**
+     * A ring buffer entry: a reusable event and the sequence it currently holds,
+     * or -1 while it is being rewritten.
+     */
+    private static class Slot {
+        private final BookingEvent event = new BookingEvent();
+        private volatile long sequence = -1;
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * Receives the events of a BookingEventBus on the consumer's own thread.
+ */
+public interface BookingEventHandler {
+    /**
+     * Handles one event. The event object is reused for the next event, so its values
+     * must be copied if they are needed after this call returns.
+     *
+     * @param event      the event
+     * @param endOfBatch true if this is the last event currently available, so buffered work can be flushed
+     */
+    void onEvent(BookingEvent event, boolean endOfBatch);
+
+    /**
+     * Called when the consumer fell so far behind that events were overwritten before it read them.
+     *
+     * @param missed the number of events that were lost
+     */
+    default void onOverrun(long missed) {
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * The kind of change to a hotel that a booking event describes.
+ */
+public enum BookingEventType {
+    /** A reservation was recorded. */
+    RESERVATION_ADDED,
+    /** A reservation was cancelled or removed. */
+    RESERVATION_CANCELLED,
+    /** A room was added to the hotel. */
+    ROOM_ADDED,
+    /** A room was removed from the hotel. */
+    ROOM_REMOVED,
+    /** The price per night of a room changed. */
+    ROOM_PRICE_CHANGED,
+    /** The base price of the hotel changed. */
+    BASE_PRICE_CHANGED,
+    /** A room was renamed. */
+    ROOM_RENAMED,
+    /** The nightly rate multiplier of a range of nights changed. */
+    RATES_CHANGED
+}
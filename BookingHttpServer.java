@@ -0,0 +1,417 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the booking operations over HTTP on the loopback interface, using the JDK's built-in server.
+ * Each request is handled on its own virtual thread when the JDK supports them, and on a
+ * cached pool of platform threads otherwise, so slow requests never hold up the others.
+ *
+ * Parameters are passed in the query string or as a form-encoded body, and responses are JSON:
+ * <pre>
+ * POST   /hotels    name, rooms, basePrice (optional)        create a hotel
+ * GET    /hotels                                             list the hotels
+ * GET    /search    checkIn, checkOut, type, limit (optional) find the cheapest free rooms
+ * POST   /bookings  hotel, guest, checkIn, checkOut, room or type  book a room
+ * DELETE /bookings  hotel, id                                cancel a reservation
+ * GET    /reports   hotel, date, month (optional)            earnings and occupancy of a hotel
+ * GET    /metrics                                            operation statistics, as text
+ * </pre>
+ * Dates are ISO dates such as 2026-12-24, months are such as 2026-12, and types are standard or deluxe.
+ * Stays must lie between Hotel.EARLIEST_DATE and Hotel.LATEST_DATE, and names may be at most
+ * Hotel.MAX_NAME_LENGTH characters long; other requests are refused with status 400.
+ */
+public class BookingHttpServer implements Closeable {
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+    private static final int MAX_SEARCH_LIMIT = 1000;
+
+    private final HotelRegistry registry;
+    private final Journal journal;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a server for the given hotels, listening on a local port. It starts serving when start is called.
+     *
+     * @param registry the hotels to serve
+     * @param journal  the journal new hotels are written to, or null if changes are not saved
+     * @param port     the port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public BookingHttpServer(HotelRegistry registry, Journal journal, int port) throws IOException {
+        this.registry = registry;
+        this.journal = journal;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/hotels", exchange -> handle(exchange, this::hotels));
+        server.createContext("/search", exchange -> handle(exchange, this::search));
+        server.createContext("/bookings", exchange -> handle(exchange, this::bookings));
+        server.createContext("/reports", exchange -> handle(exchange, this::reports));
+        server.createContext("/metrics", exchange -> handle(exchange, this::metrics));
+    }
+
+    /**
+     * Starts serving requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, gives running requests a second to finish and stops the threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates the executor requests run on: one virtual thread per request if the JDK has
+     * Executors.newVirtualThreadPerTaskExecutor, otherwise a cached pool of daemon threads.
+     * The method is looked up reflectively so the server also runs on JDKs without virtual threads.
+     *
+     * @return the executor
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "booking-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Creates a hotel or lists the hotels.
+     */
+    private Response hotels(String method, Map<String, String> params) {
+        if (method.equals("GET")) {
+            StringBuilder json = new StringBuilder("[");
+            for (Hotel hotel : registry.getHotels()) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                HotelSnapshot snapshot = hotel.snapshot();
+                json.append("{\"name\":").append(quote(snapshot.getName()))
+                        .append(",\"rooms\":").append(snapshot.getRooms().size())
+                        .append(",\"basePrice\":").append(snapshot.getBasePrice()).append('}');
+            }
+            return new Response(200, json.append(']').toString());
+        }
+        if (!method.equals("POST")) {
+            return Response.methodNotAllowed();
+        }
+        String name = required(params, "name").trim();
+        int rooms = Integer.parseInt(required(params, "rooms"));
+        double basePrice = params.containsKey("basePrice") ? Double.parseDouble(params.get("basePrice")) : 1299.00;
+        if (name.isEmpty() || !Hotel.isValidName(name) || rooms < 1 || rooms > CreateHotel.MAX_ROOMS
+                || basePrice <= 0) {
+            return Response.error(400, "A hotel needs a name of at most " + Hotel.MAX_NAME_LENGTH
+                    + " characters, 1 to " + CreateHotel.MAX_ROOMS + " rooms and a positive base price");
+        }
+        Hotel hotel = CreateHotel.create(registry, journal, name, rooms, basePrice);
+        if (hotel == null) {
+            return Response.error(409, "Hotel name already exists");
+        }
+        return new Response(201, "{\"name\":" + quote(hotel.getName()) + ",\"rooms\":" + rooms
+                + ",\"basePrice\":" + basePrice + "}");
+    }
+
+    /**
+     * Finds the cheapest rooms available over a stay across every hotel.
+     */
+    private Response search(String method, Map<String, String> params) {
+        if (!method.equals("GET")) {
+            return Response.methodNotAllowed();
+        }
+        LocalDate checkIn = LocalDate.parse(required(params, "checkIn"));
+        LocalDate checkOut = LocalDate.parse(required(params, "checkOut"));
+        Class<? extends Room> type = params.containsKey("type") ? roomType(params.get("type")) : null;
+        int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_SEARCH_LIMIT;
+        if (!checkOut.isAfter(checkIn) || limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            return Response.error(400, "Check-out must be after check-in and the limit from 1 to " + MAX_SEARCH_LIMIT);
+        }
+        if (!Hotel.isWithinWindow(checkIn, checkOut)) {
+            return outsideWindow();
+        }
+
+        List<SearchResult> results = HotelSearch.search(registry.getHotels(), checkIn, checkOut, type, limit);
+        StringBuilder json = new StringBuilder("[");
+        for (SearchResult result : results) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"hotel\":").append(quote(result.getHotel().getName()))
+                    .append(",\"room\":").append(quote(result.getRoom().getName()))
+                    .append(",\"totalPrice\":").append(result.getTotalPrice()).append('}');
+        }
+        return new Response(200, json.append(']').toString());
+    }
+
+    /**
+     * Books a room, either a named one or any room of a type, or cancels a reservation by its id.
+     */
+    private Response bookings(String method, Map<String, String> params) {
+        if (!method.equals("POST") && !method.equals("DELETE")) {
+            return Response.methodNotAllowed();
+        }
+        Hotel hotel = registry.get(required(params, "hotel"));
+        if (hotel == null) {
+            return Response.error(404, "Hotel not found");
+        }
+
+        if (method.equals("DELETE")) {
+            Reservation reservation = hotel.cancelReservation(Long.parseLong(required(params, "id")));
+            if (reservation == null) {
+                return Response.error(404, "Reservation not found");
+            }
+            return new Response(200, toJson(hotel, reservation));
+        }
+
+        String guest = required(params, "guest").trim();
+        LocalDate checkIn = LocalDate.parse(required(params, "checkIn"));
+        LocalDate checkOut = LocalDate.parse(required(params, "checkOut"));
+        if (guest.isEmpty() || !Hotel.isValidName(guest) || !checkOut.isAfter(checkIn)) {
+            return Response.error(400, "A booking needs a guest name of at most " + Hotel.MAX_NAME_LENGTH
+                    + " characters and a check-out after check-in");
+        }
+        if (!Hotel.isWithinWindow(checkIn, checkOut)) {
+            return outsideWindow();
+        }
+        Reservation reservation;
+        if (params.containsKey("room")) {
+            Room room = hotel.getRoom(params.get("room"));
+            if (room == null) {
+                return Response.error(404, "Room not found");
+            }
+            reservation = hotel.book(guest, room, checkIn, checkOut);
+        } else {
+            reservation = hotel.bookRoomOfType(guest, roomType(required(params, "type")), checkIn, checkOut,
+                    AllocationPolicy.BEST_FIT);
+        }
+        if (reservation == null) {
+            return Response.error(409, "No room is available for those dates");
+        }
+        return new Response(201, toJson(hotel, reservation));
+    }
+
+    /**
+     * Reports the earnings and occupancy of a hotel.
+     */
+    private Response reports(String method, Map<String, String> params) {
+        if (!method.equals("GET")) {
+            return Response.methodNotAllowed();
+        }
+        Hotel hotel = registry.get(required(params, "hotel"));
+        if (hotel == null) {
+            return Response.error(404, "Hotel not found");
+        }
+        LocalDate date = params.containsKey("date") ? LocalDate.parse(params.get("date")) : LocalDate.now();
+        YearMonth month = params.containsKey("month") ? YearMonth.parse(params.get("month")) : YearMonth.from(date);
+
+        HotelSnapshot snapshot = hotel.snapshot();
+        return new Response(200, "{\"hotel\":" + quote(snapshot.getName())
+                + ",\"rooms\":" + snapshot.getRooms().size()
+                + ",\"reservations\":" + snapshot.getReservations().size()
+                + ",\"estimatedEarnings\":" + snapshot.getEstimatedEarnings()
+                + ",\"month\":" + quote(month.toString())
+                + ",\"monthlyEarnings\":" + hotel.getMonthlyEarnings(month)
+                + ",\"date\":" + quote(date.toString())
+                + ",\"bookedRooms\":" + hotel.getBookedRooms(date) + "}");
+    }
+
+    /**
+     * Dumps the statistics of every instrumented operation.
+     */
+    private Response metrics(String method, Map<String, String> params) {
+        if (!method.equals("GET")) {
+            return Response.methodNotAllowed();
+        }
+        return new Response(200, "text/plain; charset=utf-8", Metrics.report());
+    }
+
+    /**
+     * Runs an endpoint and writes its response, turning malformed parameters into a 400 response.
+     */
+    private static void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        Response response;
+        try {
+            response = endpoint.handle(exchange.getRequestMethod(), parameters(exchange));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response = Response.error(400, e.getMessage());
+        } catch (RuntimeException e) {
+            response = Response.error(500, "Internal error: " + e);
+        }
+
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", response.contentType);
+        exchange.sendResponseHeaders(response.status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Decodes the parameters of the query string and of a form-encoded request body.
+     * A parameter in the body replaces one of the same name in the query string.
+     */
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        HashMap<String, String> params = new HashMap<>();
+        decode(exchange.getRequestURI().getRawQuery(), params);
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        if (body.length > 0) {
+            decode(new String(body, StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    /**
+     * Adds the name=value pairs of a URL-encoded string to a map.
+     */
+    private static void decode(String encoded, Map<String, String> params) {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(name, value);
+        }
+    }
+
+    /**
+     * Gets a parameter that must be present.
+     *
+     * @throws IllegalArgumentException if the parameter is missing
+     */
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Parses a room type name.
+     *
+     * @throws IllegalArgumentException if the type is neither standard nor deluxe
+     */
+    private static Class<? extends Room> roomType(String type) {
+        if (type.equalsIgnoreCase("standard")) {
+            return StandardRoom.class;
+        } else if (type.equalsIgnoreCase("deluxe")) {
+            return DeluxeRoom.class;
+        }
+        throw new IllegalArgumentException("Unknown room type: " + type);
+    }
+
+    /**
+     * Describes a reservation as JSON.
+     */
+    private static String toJson(Hotel hotel, Reservation reservation) {
+        return "{\"id\":" + reservation.getId()
+                + ",\"hotel\":" + quote(hotel.getName())
+                + ",\"room\":" + quote(reservation.getRoom().getName())
+                + ",\"guest\":" + quote(reservation.getGuestName())
+                + ",\"checkIn\":" + quote(reservation.getCheckIn().toString())
+                + ",\"checkOut\":" + quote(reservation.getCheckOut().toString())
+                + ",\"totalPrice\":" + reservation.getTotalPrice() + "}";
+    }
+
+    /**
+     * Refuses a stay outside the dates hotels can be booked for.
+     */
+    private static Response outsideWindow() {
+        return Response.error(400, "Dates must be between " + Hotel.EARLIEST_DATE + " and " + Hotel.LATEST_DATE);
+    }
+
+    /**
+     * Quotes a string as a JSON string literal.
+     */
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Handles the decoded request of one endpoint.
+     */
+    private interface Endpoint {
+        Response handle(String method, Map<String, String> params);
+    }
+
+    /**
+     * The status, content type and body of a response.
+     */
+    private static class Response {
+        private final int status;
+        private final String contentType;
+        private final String body;
+
+        Response(int status, String body) {
+            this(status, "application/json; charset=utf-8", body);
+        }
+
+        Response(int status, String contentType, String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, "{\"error\":" + quote(String.valueOf(message)) + "}");
+        }
+
+        static Response methodNotAllowed() {
+            return error(405, "Method not allowed");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * The result of applying a single booking request.
+ */
+public enum BookingOutcome {
+    /** The room was booked and a reservation was added. */
+    BOOKED,
+    /** At least one night of the stay was already booked. */
+    CONFLICT,
+    /** The hotel has no room with the requested name. */
+    UNKNOWN_ROOM,
+    /** The check-out date is not after the check-in date, or the stay is outside the supported window. */
+    INVALID_DATES,
+    /** The guest's name is longer than Hotel.MAX_NAME_LENGTH. */
+    INVALID_NAME
+}
@@ -0,0 +1,62 @@
+import java.time.LocalDate;
+
+/**
+ * Represents a single request to book a named room for a stay, as submitted in a batch.
+ */
+public class BookingRequest {
+    private String guestName;
+    private String roomName;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    /**
+     * Constructs a new BookingRequest for the specified guest, room and stay.
+     *
+     * @param guestName the name of the guest
+     * @param roomName the name of the room to book
+     * @param checkIn the check-in date
+     * @param checkOut the check-out date
+     */
+    public BookingRequest(String guestName, String roomName, LocalDate checkIn, LocalDate checkOut) {
+        this.guestName = guestName;
+        this.roomName = roomName;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+    }
+
+    /**
+     * Gets the name of the guest.
+     *
+     * @return the guest's name
+     */
+    public String getGuestName() {
+        return guestName;
+    }
+
+    /**
+     * Gets the name of the room to book.
+     *
+     * @return the room name
+     */
+    public String getRoomName() {
+        return roomName;
+    }
+
+    /**
+     * Gets the check-in date.
+     *
+     * @return the check-in date
+     */
+    public LocalDate getCheckIn() {
+        return checkIn;
+    }
+
+    /**
+     * Gets the check-out date.
+     *
+     * @return the check-out date
+     */
+    public LocalDate getCheckOut() {
+        return checkOut;
+    }
+}
@@ -0,0 +1,579 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads reservations in bulk from a CSV file with a header row naming at least the
+ * hotel, room, guest, check_in and check_out columns; other columns are ignored, so a
+ * reservations file written by Exporter can be imported as is. Each reservation is priced
+ * at the hotel's current rates.
+ *
+ * The file is split at line breaks into chunks that are memory-mapped and parsed in
+ * parallel. Fields are read straight from the mapped bytes: hotel and room names are
+ * looked up in a per-chunk cache so each distinct name becomes one String, dates are parsed
+ * from their digits, and only guest names need a String per row. The rows of each hotel are
+ * then booked with Hotel.bookBatch, hotels in parallel, which checks every stay against the
+ * room's calendar. Rows that are malformed or cannot be booked are listed in a report.
+ */
+public class BulkImporter {
+    private static final String[] COLUMNS = {"hotel", "room", "guest", "check_in", "check_out"};
+    private static final int HOTEL = 0;
+    private static final int ROOM = 1;
+    private static final int GUEST = 2;
+    private static final int CHECK_IN = 3;
+    private static final int CHECK_OUT = 4;
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    private static final int BATCH_SIZE = 50_000;
+
+    private final HotelRegistry registry;
+    private final Journal journal;
+
+    /**
+     * Constructs a BulkImporter for the given hotels.
+     *
+     * @param registry the hotels to book the reservations in
+     * @param journal  the journal the bookings are written to, or null if changes are not saved;
+     *                 it is flushed after every batch so deferred records do not pile up
+     */
+    public BulkImporter(HotelRegistry registry, Journal journal) {
+        this.registry = registry;
+        this.journal = journal;
+    }
+
+    /**
+     * Imports the reservations of a CSV file.
+     *
+     * @param file   the CSV file to import
+     * @param report the file to list rejected rows in, as CSV with the line, the reason and the row,
+     *               or null for no report
+     * @return the numbers of rows read, booked and rejected
+     * @throws IOException if the file cannot be read, lacks a required column, or the report cannot be written
+     */
+    public ImportResult importFile(Path file, Path report) throws IOException {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long headerEnd = lineEnd(channel, 0, size);
+            int[] columns = parseHeader(readLine(channel, 0, size));
+            long[] bounds = split(channel, headerEnd, size);
+
+            Chunk[] chunks = new Chunk[bounds.length - 1];
+            try {
+                IntStream.range(0, chunks.length).parallel()
+                        .forEach(i -> chunks[i] = parse(channel, bounds[i], bounds[i + 1], columns));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // Line numbers are only known once every chunk has counted its lines
+            long rows = 0;
+            long line = 2;
+            for (Chunk chunk : chunks) {
+                chunk.firstLine = line;
+                line += chunk.lines;
+                rows += chunk.rows;
+            }
+
+            ArrayList<Rejection> rejected = new ArrayList<>();
+            LinkedHashMap<Hotel, ArrayList<Batch>> byHotel = new LinkedHashMap<>();
+            for (Chunk chunk : chunks) {
+                rejected.addAll(chunk.rejected);
+                for (Map.Entry<String, Batch> entry : chunk.batches.entrySet()) {
+                    Hotel hotel = registry.get(entry.getKey());
+                    if (hotel == null) {
+                        entry.getValue().rejectAll("unknown hotel", rejected);
+                    } else {
+                        byHotel.computeIfAbsent(hotel, h -> new ArrayList<>()).add(entry.getValue());
+                    }
+                }
+            }
+
+            List<ArrayList<Rejection>> conflicts = byHotel.entrySet().parallelStream()
+                    .map(entry -> book(entry.getKey(), entry.getValue()))
+                    .collect(Collectors.toList());
+            for (ArrayList<Rejection> hotelRejected : conflicts) {
+                rejected.addAll(hotelRejected);
+            }
+
+            if (report != null) {
+                writeReport(channel, size, rejected, report);
+            }
+            return new ImportResult(rows, rows - rejected.size(), rejected.size(), System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Books the parsed rows of one hotel in batches, in file order.
+     *
+     * @return the rows that could not be booked
+     */
+    private ArrayList<Rejection> book(Hotel hotel, List<Batch> batches) {
+        ArrayList<Rejection> rejected = new ArrayList<>();
+        for (Batch batch : batches) {
+            for (int from = 0; from < batch.requests.size(); from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, batch.requests.size());
+                List<BookingOutcome> outcomes = hotel.bookBatch(batch.requests.subList(from, to));
+                for (int i = 0; i < outcomes.size(); i++) {
+                    BookingOutcome outcome = outcomes.get(i);
+                    if (outcome != BookingOutcome.BOOKED) {
+                        rejected.add(batch.rejection(from + i, reasonFor(outcome)));
+                    }
+                }
+                if (journal != null) {
+                    journal.flush();
+                }
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Describes why a booking was refused.
+     */
+    private static String reasonFor(BookingOutcome outcome) {
+        switch (outcome) {
+            case CONFLICT: return "room not available";
+            case UNKNOWN_ROOM: return "unknown room";
+            case INVALID_DATES: return "check-out not after check-in, or outside the supported dates";
+            case INVALID_NAME: return "guest name too long";
+            default: return outcome.toString();
+        }
+    }
+
+    /**
+     * Finds the position of each required column in the header row.
+     *
+     * @throws IOException if a required column is missing
+     */
+    private static int[] parseHeader(String header) throws IOException {
+        String[] names = header.split(",");
+        int[] columns = new int[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            columns[c] = -1;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].trim().replace("\"", "").equalsIgnoreCase(COLUMNS[c])) {
+                    columns[c] = i;
+                }
+            }
+            if (columns[c] < 0) {
+                throw new IOException("The header has no " + COLUMNS[c] + " column");
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Splits the data after the header into chunks of roughly equal size that end at line breaks,
+     * enough for every processor and each small enough to map.
+     *
+     * @return the chunk boundaries, from the start of the data to the end of the file
+     */
+    private static long[] split(FileChannel channel, long start, long size) throws IOException {
+        long length = size - start;
+        int chunks = (int) Math.max(Runtime.getRuntime().availableProcessors() * 4L,
+                (length + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        chunks = (int) Math.max(1, Math.min(chunks, length / 4096 + 1));
+        long[] bounds = new long[chunks + 1];
+        bounds[0] = start;
+        int count = 1;
+        for (int i = 1; i < chunks; i++) {
+            long target = Math.max(start + length * i / chunks, bounds[count - 1]);
+            long boundary = lineEnd(channel, target, size);
+            if (boundary > bounds[count - 1] && boundary < size) {
+                bounds[count++] = boundary;
+            }
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Finds the position just after the first line break at or after a position, or the end of the file.
+     */
+    private static long lineEnd(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Reads the line starting at a position, without its line break.
+     */
+    private static String readLine(FileChannel channel, long position, long size) throws IOException {
+        long end = lineEnd(channel, position, size);
+        ByteBuffer line = ByteBuffer.allocate((int) Math.min(end - position, 1 << 20));
+        channel.read(line, position);
+        String text = new String(line.array(), 0, line.position(), StandardCharsets.UTF_8);
+        return text.endsWith("\n") ? text.substring(0, text.length() - 1).replace("\r", "") : text.replace("\r", "");
+    }
+
+    /**
+     * Maps and parses one chunk of lines into per-hotel batches of booking requests.
+     */
+    private static Chunk parse(FileChannel channel, long start, long end, int[] columns) {
+        MappedByteBuffer data;
+        try {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Chunk chunk = new Chunk();
+        NameCache names = new NameCache();
+        int lastColumn = 0;
+        for (int column : columns) {
+            lastColumn = Math.max(lastColumn, column);
+        }
+        int[] fieldStart = new int[lastColumn + 1];
+        int[] fieldEnd = new int[lastColumn + 1];
+
+        int limit = data.limit();
+        int position = 0;
+        while (position < limit) {
+            int lineStart = position;
+            int lineEnd = position;
+            while (lineEnd < limit && data.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            position = lineEnd + 1;
+            if (lineEnd > lineStart && data.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            int line = chunk.lines++;
+            if (lineEnd == lineStart) {
+                continue;
+            }
+            chunk.rows++;
+
+            String reason = splitFields(data, lineStart, lineEnd, fieldStart, fieldEnd);
+            if (reason != null) {
+                chunk.rejected.add(new Rejection(chunk, line, start + lineStart, reason));
+                continue;
+            }
+            try {
+                String hotel = text(data, fieldStart[columns[HOTEL]], fieldEnd[columns[HOTEL]], names);
+                String room = text(data, fieldStart[columns[ROOM]], fieldEnd[columns[ROOM]], names);
+                String guest = text(data, fieldStart[columns[GUEST]], fieldEnd[columns[GUEST]], null);
+                LocalDate checkIn = date(data, fieldStart[columns[CHECK_IN]], fieldEnd[columns[CHECK_IN]]);
+                LocalDate checkOut = date(data, fieldStart[columns[CHECK_OUT]], fieldEnd[columns[CHECK_OUT]]);
+                if (guest.isEmpty()) {
+                    chunk.rejected.add(new Rejection(chunk, line, start + lineStart, "missing guest"));
+                    continue;
+                }
+                chunk.batches.computeIfAbsent(hotel, h -> new Batch(chunk))
+                        .add(new BookingRequest(guest, room, checkIn, checkOut), line, start + lineStart);
+            } catch (DateTimeException e) {
+                chunk.rejected.add(new Rejection(chunk, line, start + lineStart, "invalid date"));
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Finds where each field of a line starts and ends, up to the last needed column.
+     * A quoted field's bounds include its quotes.
+     *
+     * @return null if the line has enough fields, otherwise the reason it is malformed
+     */
+    private static String splitFields(ByteBuffer data, int start, int end, int[] fieldStart, int[] fieldEnd) {
+        int position = start;
+        for (int field = 0; field < fieldStart.length; field++) {
+            if (position > end) {
+                return "missing fields";
+            }
+            fieldStart[field] = position;
+            if (position < end && data.get(position) == '"') {
+                position++;
+                while (true) {
+                    if (position >= end) {
+                        return "unclosed quote";
+                    }
+                    if (data.get(position) == '"') {
+                        if (position + 1 < end && data.get(position + 1) == '"') {
+                            position += 2;
+                            continue;
+                        }
+                        position++;
+                        break;
+                    }
+                    position++;
+                }
+                if (position < end && data.get(position) != ',') {
+                    return "text after quoted field";
+                }
+            } else {
+                while (position < end && data.get(position) != ',') {
+                    position++;
+                }
+            }
+            fieldEnd[field] = position;
+            position++;
+        }
+        return null;
+    }
+
+    /**
+     * Reads a text field. Unquoted fields are looked up in the name cache when one is given,
+     * so a name repeated on many rows is decoded once.
+     */
+    private static String text(ByteBuffer data, int start, int end, NameCache names) {
+        if (end - start >= 2 && data.get(start) == '"') {
+            byte[] bytes = new byte[end - start - 2];
+            int length = 0;
+            for (int i = start + 1; i < end - 1; i++) {
+                byte b = data.get(i);
+                bytes[length++] = b;
+                if (b == '"') {
+                    i++;
+                }
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        if (names != null) {
+            return names.get(data, start, end);
+        }
+        byte[] bytes = new byte[end - start];
+        data.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses an ISO date such as 2026-12-24 from its digits.
+     *
+     * @throws DateTimeException if the field is not a valid date
+     */
+    private static LocalDate date(ByteBuffer data, int start, int end) {
+        if (end - start != 10 || data.get(start + 4) != '-' || data.get(start + 7) != '-') {
+            throw new DateTimeException("Not an ISO date");
+        }
+        return LocalDate.of(digits(data, start, start + 4), digits(data, start + 5, start + 7),
+                digits(data, start + 8, start + 10));
+    }
+
+    /**
+     * Parses a run of decimal digits.
+     *
+     * @throws DateTimeException if a byte is not a digit
+     */
+    private static int digits(ByteBuffer data, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = data.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new DateTimeException("Not a digit");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Writes the rejected rows, in file order, as CSV with the line number, the reason and the original row.
+     */
+    private static void writeReport(FileChannel channel, long size, List<Rejection> rejected, Path report)
+            throws IOException {
+        rejected.sort(Comparator.comparingLong(Rejection::getLine));
+        try (BufferedWriter out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            out.write("line,reason,row");
+            out.newLine();
+            for (Rejection rejection : rejected) {
+                String row = readLine(channel, rejection.offset, size);
+                out.write(rejection.getLine() + "," + rejection.reason + ",\"" + row.replace("\"", "\"\"") + "\"");
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * The parsed rows of one chunk: booking requests grouped by hotel name, and the malformed rows.
+     */
+    private static class Chunk {
+        private final HashMap<String, Batch> batches = new HashMap<>();
+        private final ArrayList<Rejection> rejected = new ArrayList<>();
+        private int lines;
+        private int rows;
+        private long firstLine;
+    }
+
+    /**
+     * The booking requests of one hotel from one chunk, with the line and file offset of each.
+     */
+    private static class Batch {
+        private final Chunk chunk;
+        private final ArrayList<BookingRequest> requests = new ArrayList<>();
+        private int[] lines = new int[16];
+        private long[] offsets = new long[16];
+
+        Batch(Chunk chunk) {
+            this.chunk = chunk;
+        }
+
+        /**
+         * Adds a request parsed from the given chunk line, starting at the given file offset.
+         */
+        void add(BookingRequest request, int line, long offset) {
+            int index = requests.size();
+            if (index == lines.length) {
+                lines = Arrays.copyOf(lines, index * 2);
+                offsets = Arrays.copyOf(offsets, index * 2);
+            }
+            requests.add(request);
+            lines[index] = line;
+            offsets[index] = offset;
+        }
+
+        /**
+         * Describes the rejection of the request at an index.
+         */
+        Rejection rejection(int index, String reason) {
+            return new Rejection(chunk, lines[index], offsets[index], reason);
+        }
+
+        /**
+         * Rejects every request of the batch for the same reason.
+         */
+        void rejectAll(String reason, List<Rejection> rejected) {
+            for (int i = 0; i < requests.size(); i++) {
+                rejected.add(rejection(i, reason));
+            }
+        }
+    }
+
+    /**
+     * A row that was not booked. Its line number is resolved through its chunk,
+     * whose first line is only known after every chunk has been parsed.
+     */
+    private static class Rejection {
+        private final Chunk chunk;
+        private final int line;
+        private final long offset;
+        private final String reason;
+
+        Rejection(Chunk chunk, int line, long offset, String reason) {
+            this.chunk = chunk;
+            this.line = line;
+            this.offset = offset;
+            this.reason = reason;
+        }
+
+        /**
+         * Gets the line number of the row in the file, counting the header as line 1.
+         */
+        long getLine() {
+            return chunk.firstLine + line;
+        }
+    }
+
+    /**
+     * Decodes each distinct name of a chunk once. Names are found by hashing and comparing
+     * their bytes in place, so a repeated name allocates nothing.
+     */
+    private static class NameCache {
+        private byte[][] keys = new byte[64][];
+        private String[] values = new String[64];
+        private int size;
+
+        /**
+         * Gets the name whose UTF-8 bytes are data[start, end), decoding it on first use.
+         */
+        String get(ByteBuffer data, int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + data.get(i);
+            }
+            int mask = keys.length - 1;
+            int slot = mix(hash) & mask;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], data, start, end)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            byte[] bytes = new byte[end - start];
+            data.get(start, bytes);
+            String name = new String(bytes, StandardCharsets.UTF_8);
+            keys[slot] = bytes;
+            values[slot] = name;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return name;
+        }
+
+        /**
+         * Checks if a cached key equals the bytes data[start, end).
+         */
+        private static boolean matches(byte[] key, ByteBuffer data, int start, int end) {
+            if (key.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != data.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Spreads the high bits of a hash into the low bits used to pick a slot.
+         */
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        /**
+         * Doubles the table and reinserts every name.
+         */
+        private void resize() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != null) {
+                    int hash = 1;
+                    for (byte b : oldKeys[j]) {
+                        hash = 31 * hash + b;
+                    }
+                    int slot = mix(hash) & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[j];
+                    values[slot] = oldValues[j];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,558 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a script of commands against the hotels without prompting, one command per line.
+ * Tokens are separated by spaces, a token containing spaces is written in double quotes
+ * (with \" and \\ for a quote or backslash inside), and lines starting with # are comments.
+ * Each command writes one line of output through a single buffered writer, and a failed
+ * command writes an error with its line number without stopping the script.
+ *
+ * <pre>
+ * create-hotel NAME ROOMS [BASE_PRICE]
+ * rename-hotel NAME NEW_NAME
+ * add-room HOTEL standard|deluxe ROOM [PRICE]
+ * add-rooms HOTEL standard|deluxe COUNT [PRICE]
+ * remove-room HOTEL ROOM
+ * rename-room HOTEL ROOM NEW_NAME
+ * set-base-price HOTEL PRICE
+ * set-room-price HOTEL ROOM PRICE
+ * set-rate HOTEL FIRST_NIGHT LAST_NIGHT PERCENT
+ * book HOTEL GUEST ROOM|standard|deluxe CHECK_IN CHECK_OUT
+ * book-or-wait HOTEL GUEST standard|deluxe CHECK_IN CHECK_OUT [PRIORITY]
+ * cancel HOTEL RESERVATION_ID
+ * cancel-guest HOTEL GUEST
+ * report HOTEL [DATE]
+ * search CHECK_IN CHECK_OUT [standard|deluxe|any] [LIMIT]
+ * metrics
+ * export DIRECTORY csv|json [FIRST_NIGHT LAST_NIGHT]
+ * import FILE [REJECTED_REPORT]
+ * </pre>
+ *
+ * Journal syncs are deferred while the script runs and done every SYNC_INTERVAL commands
+ * and at the end, so a long script is not bound by one disk sync per change.
+ */
+public class CommandScript {
+    private static final int SYNC_INTERVAL = 10_000;
+
+    private final HotelRegistry registry;
+    private final Journal journal;
+    private final BufferedWriter out;
+
+    /**
+     * Constructs a CommandScript for the given hotels.
+     *
+     * @param registry the hotels the commands act on
+     * @param journal  the journal changes are written to, or null if changes are not saved
+     * @param out      the writer the results are written to
+     */
+    public CommandScript(HotelRegistry registry, Journal journal, BufferedWriter out) {
+        this.registry = registry;
+        this.journal = journal;
+        this.out = out;
+    }
+
+    /**
+     * Runs every command read from the input, then writes a summary line and flushes the output.
+     * A command that fails with any runtime exception is reported as an error and the script
+     * goes on, and the output written so far is flushed even if the script stops early.
+     *
+     * @param in the script to run
+     * @return the number of commands that failed
+     * @throws IOException if the script cannot be read or the output cannot be written
+     */
+    public int run(BufferedReader in) throws IOException {
+        long started = System.nanoTime();
+        int commands = 0;
+        int errors = 0;
+        int lineNumber = 0;
+        if (journal != null) {
+            journal.setDeferred(true);
+        }
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                commands++;
+                try {
+                    out.write(execute(tokenize(line)));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    errors++;
+                    out.write("error at line " + lineNumber + ": " + e.getMessage());
+                } catch (RuntimeException e) {
+                    errors++;
+                    out.write("error at line " + lineNumber + ": " + e);
+                }
+                out.newLine();
+                if (journal != null && commands % SYNC_INTERVAL == 0) {
+                    journal.flush();
+                }
+            }
+        } finally {
+            if (journal != null) {
+                journal.setDeferred(false);
+                journal.flush();
+            }
+            out.flush();
+        }
+        out.write(String.format("%d commands, %d errors in %.3f s", commands, errors,
+                (System.nanoTime() - started) / 1e9));
+        out.newLine();
+        out.flush();
+        return errors;
+    }
+
+    /**
+     * Runs one command.
+     *
+     * @param tokens the command name and its arguments
+     * @return the line describing the result
+     * @throws IllegalArgumentException if the command is unknown, malformed or cannot be done
+     */
+    private String execute(List<String> tokens) {
+        String command = tokens.get(0).toLowerCase();
+        switch (command) {
+            case "create-hotel": return createHotel(tokens);
+            case "rename-hotel": return renameHotel(tokens);
+            case "add-room": return addRoom(tokens);
+            case "add-rooms": return addRooms(tokens);
+            case "remove-room": return removeRoom(tokens);
+            case "rename-room": return renameRoom(tokens);
+            case "set-base-price": return setBasePrice(tokens);
+            case "set-room-price": return setRoomPrice(tokens);
+            case "set-rate": return setRate(tokens);
+            case "book": return book(tokens);
+            case "book-or-wait": return bookOrWait(tokens);
+            case "cancel": return cancel(tokens);
+            case "cancel-guest": return cancelGuest(tokens);
+            case "report": return report(tokens);
+            case "search": return search(tokens);
+            case "metrics": return Metrics.report().trim();
+            case "export": return export(tokens);
+            case "import": return importReservations(tokens);
+            default: throw new IllegalArgumentException("Unknown command: " + tokens.get(0));
+        }
+    }
+
+    /**
+     * create-hotel NAME ROOMS [BASE_PRICE]
+     */
+    private String createHotel(List<String> tokens) {
+        expect(tokens, 3, 4, "create-hotel NAME ROOMS [BASE_PRICE]");
+        int rooms = Integer.parseInt(tokens.get(2));
+        double basePrice = tokens.size() > 3 ? Double.parseDouble(tokens.get(3)) : 1299.00;
+        if (rooms < 1 || rooms > CreateHotel.MAX_ROOMS || basePrice <= 0) {
+            throw new IllegalArgumentException("A hotel needs 1 to " + CreateHotel.MAX_ROOMS
+                    + " rooms and a positive base price");
+        }
+        if (CreateHotel.create(registry, journal, tokens.get(1), rooms, basePrice) == null) {
+            throw new IllegalArgumentException("Hotel name already exists: " + tokens.get(1));
+        }
+        return "created " + tokens.get(1) + " with " + rooms + " rooms";
+    }
+
+    /**
+     * rename-hotel NAME NEW_NAME
+     */
+    private String renameHotel(List<String> tokens) {
+        expect(tokens, 3, 3, "rename-hotel NAME NEW_NAME");
+        if (!registry.rename(hotel(tokens.get(1)), tokens.get(2))) {
+            throw new IllegalArgumentException("Hotel name already exists: " + tokens.get(2));
+        }
+        return "renamed " + tokens.get(1) + " to " + tokens.get(2);
+    }
+
+    /**
+     * add-room HOTEL standard|deluxe ROOM [PRICE]
+     */
+    private String addRoom(List<String> tokens) {
+        expect(tokens, 4, 5, "add-room HOTEL standard|deluxe ROOM [PRICE]");
+        Hotel hotel = hotel(tokens.get(1));
+        boolean deluxe = isDeluxe(tokens.get(2));
+        double price = tokens.size() > 4 ? Double.parseDouble(tokens.get(4)) : hotel.getBasePrice();
+        if (!hotel.addRoom(newRoom(deluxe, tokens.get(3), price))) {
+            throw new IllegalArgumentException("Room name already exists: " + tokens.get(3));
+        }
+        return "added " + tokens.get(3) + " to " + hotel.getName();
+    }
+
+    /**
+     * add-rooms HOTEL standard|deluxe COUNT [PRICE]
+     * The rooms are named "Room n", numbered on from the highest number already taken.
+     * Many standard rooms added to an empty hotel are stored compactly, as when a hotel is created.
+     */
+    private String addRooms(List<String> tokens) {
+        expect(tokens, 4, 5, "add-rooms HOTEL standard|deluxe COUNT [PRICE]");
+        Hotel hotel = hotel(tokens.get(1));
+        boolean deluxe = isDeluxe(tokens.get(2));
+        int count = Integer.parseInt(tokens.get(3));
+        double price = tokens.size() > 4 ? Double.parseDouble(tokens.get(4)) : hotel.getBasePrice();
+        if (count < 1 || hotel.snapshot().getRooms().size() + count > CreateHotel.MAX_ROOMS) {
+            throw new IllegalArgumentException("A hotel can have at most " + CreateHotel.MAX_ROOMS + " rooms");
+        }
+        if (deluxe || count <= CreateHotel.COMPACT_THRESHOLD || !hotel.addCompactRooms(count, price)) {
+            hotel.addRooms(deluxe, count, price);
+        }
+        return "added " + count + " rooms to " + hotel.getName();
+    }
+
+    /**
+     * remove-room HOTEL ROOM
+     */
+    private String removeRoom(List<String> tokens) {
+        expect(tokens, 3, 3, "remove-room HOTEL ROOM");
+        Hotel hotel = hotel(tokens.get(1));
+        room(hotel, tokens.get(2));
+        if (!hotel.removeRoom(tokens.get(2))) {
+            throw new IllegalArgumentException("Cannot remove room with active reservations: " + tokens.get(2));
+        }
+        return "removed " + tokens.get(2) + " from " + hotel.getName();
+    }
+
+    /**
+     * rename-room HOTEL ROOM NEW_NAME
+     */
+    private String renameRoom(List<String> tokens) {
+        expect(tokens, 4, 4, "rename-room HOTEL ROOM NEW_NAME");
+        Hotel hotel = hotel(tokens.get(1));
+        room(hotel, tokens.get(2));
+        if (!hotel.renameRoom(tokens.get(2), tokens.get(3))) {
+            throw new IllegalArgumentException("Room name already exists: " + tokens.get(3));
+        }
+        return "renamed " + tokens.get(2) + " to " + tokens.get(3);
+    }
+
+    /**
+     * set-base-price HOTEL PRICE
+     */
+    private String setBasePrice(List<String> tokens) {
+        expect(tokens, 3, 3, "set-base-price HOTEL PRICE");
+        Hotel hotel = hotel(tokens.get(1));
+        double price = Double.parseDouble(tokens.get(2));
+        if (!hotel.hasNoReservations()) {
+            throw new IllegalArgumentException("Cannot update base price with active reservations");
+        }
+        if (price <= 0) {
+            throw new IllegalArgumentException("The base price must be positive");
+        }
+        hotel.updateBasePrice(price);
+        return "set the base price of " + hotel.getName() + " to " + formatPrice(price);
+    }
+
+    /**
+     * set-room-price HOTEL ROOM PRICE
+     */
+    private String setRoomPrice(List<String> tokens) {
+        expect(tokens, 4, 4, "set-room-price HOTEL ROOM PRICE");
+        Hotel hotel = hotel(tokens.get(1));
+        Room room = room(hotel, tokens.get(2));
+        double price = Double.parseDouble(tokens.get(3));
+        if (price < 100.0 || !hotel.noActiveReservations(room)) {
+            throw new IllegalArgumentException("Cannot update price with active reservations or price is below 100");
+        }
+        hotel.updateRoomPrice(room, price);
+        return "set the price of " + room.getName() + " to " + formatPrice(price);
+    }
+
+    /**
+     * set-rate HOTEL FIRST_NIGHT LAST_NIGHT PERCENT
+     */
+    private String setRate(List<String> tokens) {
+        expect(tokens, 5, 5, "set-rate HOTEL FIRST_NIGHT LAST_NIGHT PERCENT");
+        Hotel hotel = hotel(tokens.get(1));
+        LocalDate from = LocalDate.parse(tokens.get(2));
+        LocalDate to = LocalDate.parse(tokens.get(3));
+        double percentage = Double.parseDouble(tokens.get(4));
+        if (to.isBefore(from) || percentage < 50 || percentage > 150) {
+            throw new IllegalArgumentException("The last night must not be before the first and the rate must be 50-150%");
+        }
+        hotel.updateRates(from, to.plusDays(1), percentage / 100);
+        return "set the rate of " + hotel.getName() + " from " + from + " to " + to + " to " + percentage + "%";
+    }
+
+    /**
+     * book HOTEL GUEST ROOM|standard|deluxe CHECK_IN CHECK_OUT
+     */
+    private String book(List<String> tokens) {
+        expect(tokens, 6, 6, "book HOTEL GUEST ROOM|standard|deluxe CHECK_IN CHECK_OUT");
+        Hotel hotel = hotel(tokens.get(1));
+        String guestName = tokens.get(2);
+        String roomName = tokens.get(3);
+        LocalDate checkIn = LocalDate.parse(tokens.get(4));
+        LocalDate checkOut = LocalDate.parse(tokens.get(5));
+        if (!checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Check-out date must be after the check-in date");
+        }
+
+        Room room = hotel.getRoom(roomName);
+        Reservation reservation;
+        if (room != null) {
+            reservation = hotel.book(guestName, room, checkIn, checkOut);
+        } else if (roomName.equalsIgnoreCase("Standard") || roomName.equalsIgnoreCase("Deluxe")) {
+            reservation = hotel.bookRoomOfType(guestName, isDeluxe(roomName) ? DeluxeRoom.class : StandardRoom.class,
+                    checkIn, checkOut, AllocationPolicy.BEST_FIT);
+        } else {
+            throw new IllegalArgumentException("Room not found: " + roomName);
+        }
+        if (reservation == null) {
+            throw new IllegalArgumentException("Room is not available from " + checkIn + " to " + checkOut);
+        }
+        return "booked " + reservation.getId() + " " + reservation.getRoom().getName() + " for "
+                + guestName + " " + formatPrice(reservation.getTotalPrice());
+    }
+
+    /**
+     * book-or-wait HOTEL GUEST standard|deluxe CHECK_IN CHECK_OUT [PRIORITY]
+     */
+    private String bookOrWait(List<String> tokens) {
+        expect(tokens, 6, 7, "book-or-wait HOTEL GUEST standard|deluxe CHECK_IN CHECK_OUT [PRIORITY]");
+        Hotel hotel = hotel(tokens.get(1));
+        String guestName = tokens.get(2);
+        Class<? extends Room> type = isDeluxe(tokens.get(3)) ? DeluxeRoom.class : StandardRoom.class;
+        LocalDate checkIn = LocalDate.parse(tokens.get(4));
+        LocalDate checkOut = LocalDate.parse(tokens.get(5));
+        int priority = tokens.size() > 6 ? Integer.parseInt(tokens.get(6)) : 0;
+
+        WaitlistEntry entry = hotel.bookOrWait(guestName, type, checkIn, checkOut, priority);
+        Reservation reservation = entry.getReservation();
+        if (reservation == null) {
+            return "waitlisted " + guestName + " for " + tokens.get(3).toLowerCase() + " from " + checkIn + " to "
+                    + checkOut + ", " + hotel.getWaitlistSize() + " waiting";
+        }
+        return "booked " + reservation.getId() + " " + reservation.getRoom().getName() + " for "
+                + guestName + " " + formatPrice(reservation.getTotalPrice());
+    }
+
+    /**
+     * cancel HOTEL RESERVATION_ID
+     */
+    private String cancel(List<String> tokens) {
+        expect(tokens, 3, 3, "cancel HOTEL RESERVATION_ID");
+        Hotel hotel = hotel(tokens.get(1));
+        int waiting = hotel.getWaitlistSize();
+        Reservation reservation = hotel.cancelReservation(Long.parseLong(tokens.get(2)));
+        if (reservation == null) {
+            throw new IllegalArgumentException("Reservation not found: " + tokens.get(2));
+        }
+        return "cancelled " + reservation.getId() + " for " + reservation.getGuestName()
+                + fulfilled(waiting - hotel.getWaitlistSize());
+    }
+
+    /**
+     * cancel-guest HOTEL GUEST
+     */
+    private String cancelGuest(List<String> tokens) {
+        expect(tokens, 3, 3, "cancel-guest HOTEL GUEST");
+        Hotel hotel = hotel(tokens.get(1));
+        int count = hotel.getReservations(tokens.get(2)).size();
+        if (count == 0) {
+            throw new IllegalArgumentException("Reservation not found for guest: " + tokens.get(2));
+        }
+        int waiting = hotel.getWaitlistSize();
+        hotel.removeReservation(tokens.get(2));
+        return "cancelled " + count + " reservations for " + tokens.get(2)
+                + fulfilled(waiting - hotel.getWaitlistSize());
+    }
+
+    /**
+     * Describes how many waiting requests a cancellation booked, or nothing if it booked none.
+     * The count is only exact while no other thread changes the same hotel's waitlist.
+     */
+    private static String fulfilled(int count) {
+        return count > 0 ? ", booked " + count + " from the waitlist" : "";
+    }
+
+    /**
+     * report HOTEL [DATE]
+     */
+    private String report(List<String> tokens) {
+        expect(tokens, 2, 3, "report HOTEL [DATE]");
+        Hotel hotel = hotel(tokens.get(1));
+        LocalDate date = tokens.size() > 2 ? LocalDate.parse(tokens.get(2)) : LocalDate.now();
+        HotelSnapshot snapshot = hotel.snapshot();
+        return snapshot.getName() + ": " + snapshot.getRooms().size() + " rooms, "
+                + snapshot.getReservations().size() + " reservations, earnings "
+                + formatPrice(snapshot.getEstimatedEarnings()) + ", " + hotel.getBookedRooms(date)
+                + " rooms booked on " + date;
+    }
+
+    /**
+     * search CHECK_IN CHECK_OUT [standard|deluxe|any] [LIMIT]
+     */
+    private String search(List<String> tokens) {
+        expect(tokens, 3, 5, "search CHECK_IN CHECK_OUT [standard|deluxe|any] [LIMIT]");
+        LocalDate checkIn = LocalDate.parse(tokens.get(1));
+        LocalDate checkOut = LocalDate.parse(tokens.get(2));
+        Class<? extends Room> type = null;
+        if (tokens.size() > 3 && !tokens.get(3).equalsIgnoreCase("any")) {
+            type = isDeluxe(tokens.get(3)) ? DeluxeRoom.class : StandardRoom.class;
+        }
+        int limit = tokens.size() > 4 ? Integer.parseInt(tokens.get(4)) : 10;
+        if (!checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Check-out date must be after the check-in date");
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (SearchResult match : HotelSearch.search(registry.getHotels(), checkIn, checkOut, type, limit)) {
+            result.append(result.length() == 0 ? "found " : "; ")
+                    .append(match.getHotel().getName()).append(' ')
+                    .append(match.getRoom().getName()).append(' ')
+                    .append(formatPrice(match.getTotalPrice()));
+        }
+        return result.length() == 0 ? "found nothing" : result.toString();
+    }
+
+    /**
+     * export DIRECTORY csv|json [FIRST_NIGHT LAST_NIGHT]
+     * Availability is exported for the given nights, or for a year from today.
+     */
+    private String export(List<String> tokens) {
+        if (tokens.size() != 3 && tokens.size() != 5) {
+            throw new IllegalArgumentException("Usage: export DIRECTORY csv|json [FIRST_NIGHT LAST_NIGHT]");
+        }
+        ExportFormat format = ExportFormat.valueOf(tokens.get(2).toUpperCase());
+        LocalDate from = tokens.size() > 3 ? LocalDate.parse(tokens.get(3)) : LocalDate.now();
+        LocalDate to = tokens.size() > 3 ? LocalDate.parse(tokens.get(4)).plusDays(1) : from.plusYears(1);
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("The last night must not be before the first");
+        }
+        try {
+            long rows = Exporter.exportAll(registry.getHotels(), Paths.get(tokens.get(1)), format, from, to);
+            return "exported " + rows + " rows to " + tokens.get(1);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not export to " + tokens.get(1) + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * import FILE [REJECTED_REPORT]
+     */
+    private String importReservations(List<String> tokens) {
+        expect(tokens, 2, 3, "import FILE [REJECTED_REPORT]");
+        Path report = tokens.size() > 2 ? Paths.get(tokens.get(2)) : null;
+        try {
+            return new BulkImporter(registry, journal).importFile(Paths.get(tokens.get(1)), report).toString();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not import " + tokens.get(1) + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets a hotel by name.
+     *
+     * @throws IllegalArgumentException if there is no hotel with the name
+     */
+    private Hotel hotel(String name) {
+        Hotel hotel = registry.get(name);
+        if (hotel == null) {
+            throw new IllegalArgumentException("Hotel not found: " + name);
+        }
+        return hotel;
+    }
+
+    /**
+     * Gets a room of a hotel by name.
+     *
+     * @throws IllegalArgumentException if the hotel has no room with the name
+     */
+    private static Room room(Hotel hotel, String name) {
+        Room room = hotel.getRoom(name);
+        if (room == null) {
+            throw new IllegalArgumentException("Room not found: " + name);
+        }
+        return room;
+    }
+
+    /**
+     * Creates a standard or deluxe room.
+     */
+    private static Room newRoom(boolean deluxe, String name, double price) {
+        return deluxe ? new DeluxeRoom(name, price) : new StandardRoom(name, price);
+    }
+
+    /**
+     * Parses a room type.
+     *
+     * @return true for deluxe, false for standard
+     * @throws IllegalArgumentException if the type is neither
+     */
+    private static boolean isDeluxe(String type) {
+        if (type.equalsIgnoreCase("deluxe")) {
+            return true;
+        } else if (type.equalsIgnoreCase("standard")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown room type: " + type);
+    }
+
+    /**
+     * Checks the number of tokens of a command, including the command name.
+     *
+     * @throws IllegalArgumentException with the usage if the count is out of range
+     */
+    private static void expect(List<String> tokens, int min, int max, String usage) {
+        if (tokens.size() < min || tokens.size() > max) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+
+    /**
+     * Formats a price with two decimals.
+     */
+    private static String formatPrice(double price) {
+        return String.format("%.2f", price);
+    }
+
+    /**
+     * Splits a line into tokens separated by spaces or tabs, keeping double-quoted tokens together.
+     *
+     * @param line the line, not blank
+     * @return the tokens
+     * @throws IllegalArgumentException if a quote is not closed
+     */
+    static List<String> tokenize(String line) {
+        ArrayList<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (c == ' ' || c == '\t') {
+                i++;
+            } else if (c == '"') {
+                StringBuilder token = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= line.length()) {
+                        throw new IllegalArgumentException("Unclosed quote");
+                    }
+                    c = line.charAt(i++);
+                    if (c == '"') {
+                        break;
+                    }
+                    if (c == '\\' && i < line.length()) {
+                        c = line.charAt(i++);
+                    }
+                    token.append(c);
+                }
+                tokens.add(token.toString());
+            } else {
+                int start = i;
+                while (i < line.length() && line.charAt(i) != ' ' && line.charAt(i) != '\t') {
+                    i++;
+                }
+                tokens.add(line.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+}
@@ -1,4 +1,3 @@
-import java.util.ArrayList;
 import java.util.Scanner;
 
 /**
@@ -6,18 +5,24 @@ import java.util.Scanner;
  * including specifying the number of rooms and setting the base price for rooms.
  */
 public class CreateHotel {
-    private ArrayList<Hotel> hotels;
+    static final int MAX_ROOMS = 100_000;
+    static final int COMPACT_THRESHOLD = 50;
+
+    private HotelRegistry registry;
     private Scanner scanner;
+    private Journal journal;
 
     /**
      * Constructor for CreateHotel.
      *
-     * @param hotels  List of hotels to which the new hotel will be added.
-     * @param scanner Scanner for user input.
+     * @param registry Registry of hotels to which the new hotel will be added.
+     * @param scanner  Scanner for user input.
+     * @param journal  Journal the new hotel is written to, or null if changes are not saved.
      */
-    public CreateHotel(ArrayList<Hotel> hotels, Scanner scanner) {
-        this.hotels = hotels;
+    public CreateHotel(HotelRegistry registry, Scanner scanner, Journal journal) {
+        this.registry = registry;
         this.scanner = scanner;
+        this.journal = journal;
     }
 
     /**
@@ -30,16 +35,19 @@ public class CreateHotel {
         do {
             System.out.print("Enter hotel name: ");
             name = scanner.nextLine();
-            uniqueName = isUniqueName(name);
+            uniqueName = !registry.contains(name);
             if (!uniqueName) {
                 System.out.println("Hotel name already exists. Please enter a different name.");
+            } else if (!Hotel.isValidName(name)) {
+                System.out.println("Hotel names must be at most " + Hotel.MAX_NAME_LENGTH + " characters long.");
+                uniqueName = false;
             }
         } while (!uniqueName);
         
         int numRooms;
         do {
-            numRooms = getIntInput("Enter number of rooms (1-50): ");
-        } while (numRooms < 1 || numRooms > 50);
+            numRooms = getIntInput("Enter number of rooms (1-" + MAX_ROOMS + "): ");
+        } while (numRooms < 1 || numRooms > MAX_ROOMS);
         
         double basePrice = getDoubleInput("\nEnter base price for rooms (Enter 0 to set default base price): ");
         scanner.nextLine();
@@ -48,30 +56,43 @@ public class CreateHotel {
             basePrice = 1299.00;
         }
 
-        Hotel hotel = new Hotel(name, basePrice);
-        hotels.add(hotel);
-
-        for (int i = 1; i <= numRooms; i++) {
-            String roomName = "Room " + i;
-            hotel.addRoom(new StandardRoom(roomName, basePrice));
+        if (create(registry, journal, name, numRooms, basePrice) == null) {
+            System.out.println("Hotel name already exists. The hotel was not created.");
+            return;
         }
 
         System.out.println("Hotel created successfully with " + numRooms + " rooms.");
     }
 
     /**
-     * Checks if the hotel name is unique among existing hotels.
+     * Creates a hotel with standard rooms named "Room 1" to "Room n", registers it and journals it.
      *
-     * @param name The name to check for uniqueness.
-     * @return true if the name is unique, false otherwise.
+     * @param registry  the registry to add the hotel to
+     * @param journal   the journal to record the hotel in, or null if changes are not saved
+     * @param name      the name of the hotel
+     * @param numRooms  the number of rooms, from 1 to MAX_ROOMS
+     * @param basePrice the base price of the hotel and the price of every room
+     * @return the new hotel, or null if the name is already taken
      */
-    private boolean isUniqueName(String name) {
-        for (Hotel hotel : hotels) {
-            if (hotel.getName().equalsIgnoreCase(name)) {
-                return false;
+    public static Hotel create(HotelRegistry registry, Journal journal, String name, int numRooms, double basePrice) {
+        Hotel hotel = new Hotel(name, basePrice);
+        if (!registry.add(hotel)) {
+            return null;
+        }
+        if (journal != null) {
+            journal.hotelCreated(hotel);
+        }
+
+        // Large hotels keep their rooms in a compact table rather than one object per room
+        if (numRooms > COMPACT_THRESHOLD) {
+            hotel.addCompactRooms(numRooms, basePrice);
+        } else {
+            for (int i = 1; i <= numRooms; i++) {
+                String roomName = "Room " + i;
+                hotel.addRoom(new StandardRoom(roomName, basePrice));
             }
         }
-        return true;
+        return hotel;
     }
 
     /**
@@ -2,8 +2,6 @@
  * Represents a deluxe room in a hotel, which is a type of Room with additional amenities or a nicer view.
  */
 public class DeluxeRoom extends Room {
-    private double pricePerNight;
-
     /**
      * Constructs a new DeluxeRoom with the specified name and price per night.
      *
@@ -12,26 +10,15 @@ public class DeluxeRoom extends Room {
      */
     public DeluxeRoom(String name, double pricePerNight) {
         super(name, pricePerNight);
-        this.pricePerNight = pricePerNight;
-    }
-
-    /**
-     * Gets the price per night for the deluxe room.
-     *
-     * @return the price per night for the deluxe room
-     */
-    @Override
-    public double getPricePerNight() {
-        return pricePerNight;
     }
 
     /**
-     * Sets the price per night for the deluxe room.
+     * Constructs a view over a deluxe room stored in a RoomTable.
      *
-     * @param price the new price per night for the deluxe room
+     * @param table the table holding the room
+     * @param slot the slot of the room in the table
      */
-    @Override
-    public void setPricePerNight(double price) {
-        this.pricePerNight = price;
+    public DeluxeRoom(RoomTable table, int slot) {
+        super(table, slot);
     }
 }
@@ -0,0 +1,109 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Appends the events of a BookingEventBus to a text file, one tab-separated line per event:
+ * sequence, type, hotel, room, previous room name, guest, reservation id, check-in, check-out
+ * and amount, with - for values the event does not have.
+ * Lines are buffered and written out at the end of each batch, so a burst of bookings costs
+ * one write. If the file cannot be written, logging stops and the error is reported on close.
+ */
+public class EventLog implements BookingEventHandler, Closeable {
+    private final BufferedWriter out;
+    private long missed;
+    private IOException failure;
+
+    /**
+     * Opens an event log, appending to the file if it already exists.
+     *
+     * @param file the file to append to
+     * @throws IOException if the file cannot be opened
+     */
+    public EventLog(Path file) throws IOException {
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void onEvent(BookingEvent event, boolean endOfBatch) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            out.write(Long.toString(event.getSequence()));
+            field(event.getType().name());
+            field(event.getHotelName());
+            field(event.getRoomName());
+            field(event.getPreviousName());
+            field(event.getGuestName());
+            field(event.getReservationId() == 0 ? null : Long.toString(event.getReservationId()));
+            field(day(event, event.getCheckIn()));
+            field(day(event, event.getCheckOut()));
+            field(Double.toString(event.getAmount()));
+            out.newLine();
+            if (endOfBatch) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    @Override
+    public void onOverrun(long count) {
+        missed += count;
+    }
+
+    /**
+     * Gets the number of events that were overwritten before they could be logged.
+     * Only the consumer thread updates it, so read it after the bus is closed.
+     *
+     * @return the number of missed events
+     */
+    public long getMissed() {
+        return missed;
+    }
+
+    /**
+     * Flushes and closes the file. Call it after closing the bus, so every event has been handled.
+     *
+     * @throws IOException if the file could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Writes a tab and a value, or - if there is no value.
+     */
+    private void field(String value) throws IOException {
+        out.write('\t');
+        out.write(value == null ? "-" : value);
+    }
+
+    /**
+     * Formats the epoch day of a reservation or rate change event as a date, or null for other events.
+     */
+    private static String day(BookingEvent event, long epochDay) {
+        BookingEventType type = event.getType();
+        boolean dated = type == BookingEventType.RESERVATION_ADDED || type == BookingEventType.RESERVATION_CANCELLED
+                || type == BookingEventType.RATES_CHANGED;
+        return dated ? LocalDate.ofEpochDay(epochDay).toString() : null;
+    }
+}
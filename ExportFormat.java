@@ -0,0 +1,23 @@
+/**
+ * The file formats an Exporter can write.
+ */
+public enum ExportFormat {
+    /**
+     * Comma-separated values with a header row, quoted as in RFC 4180.
+     */
+    CSV,
+
+    /**
+     * A JSON array with one object per row.
+     */
+    JSON;
+
+    /**
+     * Gets the file extension of the format.
+     *
+     * @return the extension, without the dot
+     */
+    public String getExtension() {
+        return name().toLowerCase();
+    }
+}
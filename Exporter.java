@@ -0,0 +1,503 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Streams hotels, rooms, reservations and per-night availability to CSV or JSON.
+ * Rows are encoded straight from the model into one reusable direct buffer, which is
+ * written to the channel whenever it fills, so an export holds at most one room's reservations
+ * in memory and never builds a list of the rows or a string of the output.
+ *
+ * Each hotel's rows are written from one snapshot of it, so they all carry the hotel's name as of
+ * that snapshot even if it is renamed during the export. Each room is exported while holding the
+ * room's lock just long enough to copy its reservations, which are then encoded and written
+ * without the lock, so a slow channel never holds up bookings of the room.
+ * Rooms that were removed from a hotel but still hold some of its past reservations are
+ * exported after the hotel's current rooms, so every reservation the hotel counts is written.
+ * An Exporter is not thread-safe.
+ */
+public class Exporter {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    // Room for the longest value written without a capacity check: a number or a date
+    private static final int MAX_SCALAR = 32;
+
+    private final ExportFormat format;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // The reservations of the room being exported, copied under the room's lock and reused for every room
+    private final ArrayList<Reservation> roomReservations = new ArrayList<>();
+    private WritableByteChannel channel;
+    private boolean firstRow;
+    private boolean firstField;
+
+    /**
+     * Constructs an Exporter writing the given format.
+     *
+     * @param format the format of the output
+     */
+    public Exporter(ExportFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Exports every hotel, room, reservation and the availability of every room over a range
+     * of nights into hotels, rooms, reservations and availability files in a directory.
+     *
+     * @param hotels    the hotels to export
+     * @param directory the directory to write the files to; it is created if needed
+     * @param format    the format of the files
+     * @param from      the first night of availability to export
+     * @param to        the day after the last night of availability to export
+     * @return the number of rows written across all files
+     * @throws IOException if a file cannot be written
+     */
+    public static long exportAll(List<Hotel> hotels, Path directory, ExportFormat format,
+                                 LocalDate from, LocalDate to) throws IOException {
+        Files.createDirectories(directory);
+        Exporter exporter = new Exporter(format);
+        long rows = 0;
+        try (FileChannel out = open(directory, "hotels", format)) {
+            rows += exporter.exportHotels(hotels, out);
+        }
+        try (FileChannel out = open(directory, "rooms", format)) {
+            rows += exporter.exportRooms(hotels, out);
+        }
+        try (FileChannel out = open(directory, "reservations", format)) {
+            rows += exporter.exportReservations(hotels, out);
+        }
+        try (FileChannel out = open(directory, "availability", format)) {
+            rows += exporter.exportAvailability(hotels, from, to, out);
+        }
+        return rows;
+    }
+
+    /**
+     * Writes one row per hotel: name, base price, number of rooms and number of reservations.
+     *
+     * @param hotels  the hotels to export
+     * @param channel the channel to write to
+     * @return the number of rows written
+     * @throws IOException if the channel cannot be written
+     */
+    public long exportHotels(Collection<Hotel> hotels, WritableByteChannel channel) throws IOException {
+        begin(channel, "hotel", "base_price", "rooms", "reservations");
+        long rows = 0;
+        for (Hotel hotel : hotels) {
+            HotelSnapshot snapshot = hotel.snapshot();
+            beginRow();
+            text("hotel", snapshot.getName());
+            price("base_price", snapshot.getBasePrice());
+            number("rooms", snapshot.getRooms().size());
+            number("reservations", snapshot.getReservations().size());
+            endRow();
+            rows++;
+        }
+        end();
+        return rows;
+    }
+
+    /**
+     * Writes one row per room: hotel, name, type and price per night.
+     *
+     * @param hotels  the hotels whose rooms are exported
+     * @param channel the channel to write to
+     * @return the number of rows written
+     * @throws IOException if the channel cannot be written
+     */
+    public long exportRooms(Collection<Hotel> hotels, WritableByteChannel channel) throws IOException {
+        begin(channel, "hotel", "room", "type", "price_per_night");
+        long rows = 0;
+        for (Hotel hotel : hotels) {
+            HotelSnapshot snapshot = hotel.snapshot();
+            for (Room room : snapshot.getRooms()) {
+                beginRow();
+                text("hotel", snapshot.getName());
+                text("room", room.getName());
+                text("type", room instanceof DeluxeRoom ? "deluxe" : "standard");
+                price("price_per_night", room.getPricePerNight());
+                endRow();
+                rows++;
+            }
+        }
+        end();
+        return rows;
+    }
+
+    /**
+     * Writes one row per reservation, room by room in check-in order, including the rooms
+     * removed from the hotel that still hold its reservations:
+     * hotel, room, id, guest, check-in, check-out and total price.
+     *
+     * @param hotels  the hotels whose reservations are exported
+     * @param channel the channel to write to
+     * @return the number of rows written
+     * @throws IOException if the channel cannot be written
+     */
+    public long exportReservations(Collection<Hotel> hotels, WritableByteChannel channel) throws IOException {
+        begin(channel, "hotel", "room", "id", "guest", "check_in", "check_out", "total_price");
+        long rows = 0;
+        for (Hotel hotel : hotels) {
+            HotelSnapshot snapshot = hotel.snapshot();
+            for (Room room : snapshot.getRooms()) {
+                rows += exportReservations(snapshot.getName(), room);
+            }
+            for (Room room : hotel.getDetachedRooms()) {
+                rows += exportReservations(snapshot.getName(), room);
+            }
+        }
+        end();
+        return rows;
+    }
+
+    /**
+     * Writes the reservation rows of one room.
+     */
+    private long exportReservations(String hotelName, Room room) throws IOException {
+        roomReservations.clear();
+        synchronized (room) {
+            roomReservations.addAll(room.getReservations());
+        }
+        for (Reservation reservation : roomReservations) {
+            beginRow();
+            text("hotel", hotelName);
+            text("room", room.getName());
+            number("id", reservation.getId());
+            text("guest", reservation.getGuestName());
+            date("check_in", reservation.getCheckIn().toEpochDay());
+            date("check_out", reservation.getCheckOut().toEpochDay());
+            price("total_price", reservation.getTotalPrice());
+            endRow();
+        }
+        return roomReservations.size();
+    }
+
+    /**
+     * Writes one row per room and night in [from, to): hotel, room, date, whether the night
+     * is available, and the id of the reservation occupying it, or 0. Removed rooms that still
+     * hold reservations of the hotel are included. The nights of a room are
+     * found by walking its reservations in check-in order alongside the dates.
+     *
+     * @param hotels  the hotels whose rooms are exported
+     * @param from    the first night to export
+     * @param to      the day after the last night to export
+     * @param channel the channel to write to
+     * @return the number of rows written
+     * @throws IOException if the channel cannot be written
+     */
+    public long exportAvailability(Collection<Hotel> hotels, LocalDate from, LocalDate to,
+                                   WritableByteChannel channel) throws IOException {
+        begin(channel, "hotel", "room", "date", "available", "reservation");
+        long rows = 0;
+        for (Hotel hotel : hotels) {
+            HotelSnapshot snapshot = hotel.snapshot();
+            for (Room room : snapshot.getRooms()) {
+                rows += exportAvailability(snapshot.getName(), room, from, to);
+            }
+            for (Room room : hotel.getDetachedRooms()) {
+                rows += exportAvailability(snapshot.getName(), room, from, to);
+            }
+        }
+        end();
+        return rows;
+    }
+
+    /**
+     * Writes the availability rows of one room.
+     */
+    private long exportAvailability(String hotelName, Room room, LocalDate from, LocalDate to) throws IOException {
+        long start = from.toEpochDay();
+        long end = to.toEpochDay();
+        roomReservations.clear();
+        synchronized (room) {
+            roomReservations.addAll(room.getReservations(from, to));
+        }
+        long day = start;
+        for (Reservation reservation : roomReservations) {
+            long checkIn = Math.max(reservation.getCheckIn().toEpochDay(), start);
+            long checkOut = Math.min(reservation.getCheckOut().toEpochDay(), end);
+            for (; day < checkIn; day++) {
+                night(hotelName, room, day, 0);
+            }
+            for (; day < checkOut; day++) {
+                night(hotelName, room, day, reservation.getId());
+            }
+        }
+        for (; day < end; day++) {
+            night(hotelName, room, day, 0);
+        }
+        return Math.max(0, end - start);
+    }
+
+    /**
+     * Writes the availability row of one night.
+     */
+    private void night(String hotelName, Room room, long day, long reservationId) throws IOException {
+        beginRow();
+        text("hotel", hotelName);
+        text("room", room.getName());
+        date("date", day);
+        bool("available", reservationId == 0);
+        number("reservation", reservationId);
+        endRow();
+    }
+
+    /**
+     * Opens or replaces an export file in a directory.
+     */
+    private static FileChannel open(Path directory, String name, ExportFormat format) throws IOException {
+        return FileChannel.open(directory.resolve(name + "." + format.getExtension()),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Starts a document: the header row of a CSV file or the opening bracket of a JSON array.
+     */
+    private void begin(WritableByteChannel channel, String... columns) throws IOException {
+        this.channel = channel;
+        buffer.clear();
+        firstRow = true;
+        if (format == ExportFormat.CSV) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    putAscii(',');
+                }
+                putText(columns[i]);
+            }
+            putAscii('\n');
+        } else {
+            putAscii('[');
+        }
+    }
+
+    /**
+     * Ends a document and writes out whatever is left in the buffer.
+     */
+    private void end() throws IOException {
+        if (format == ExportFormat.JSON) {
+            putAscii(firstRow ? "]\n" : "\n]\n");
+        }
+        drain();
+        channel = null;
+    }
+
+    /**
+     * Starts a row: the separator and opening brace of a JSON object, nothing for CSV.
+     */
+    private void beginRow() throws IOException {
+        if (format == ExportFormat.JSON) {
+            putAscii(firstRow ? "\n{" : ",\n{");
+        }
+        firstRow = false;
+        firstField = true;
+    }
+
+    /**
+     * Ends a row with the closing brace of a JSON object or the line break of a CSV row.
+     */
+    private void endRow() throws IOException {
+        putAscii(format == ExportFormat.JSON ? '}' : '\n');
+    }
+
+    /**
+     * Writes the separator and, for JSON, the name of the next field.
+     */
+    private void name(String name) throws IOException {
+        if (!firstField) {
+            putAscii(',');
+        }
+        firstField = false;
+        if (format == ExportFormat.JSON) {
+            putAscii('"');
+            putAscii(name);
+            putAscii("\":");
+        }
+    }
+
+    /**
+     * Writes a string field.
+     */
+    private void text(String name, String value) throws IOException {
+        name(name);
+        putText(value);
+    }
+
+    /**
+     * Writes a non-negative whole number field.
+     */
+    private void number(String name, long value) throws IOException {
+        name(name);
+        reserve(MAX_SCALAR);
+        putLong(value);
+    }
+
+    /**
+     * Writes a true or false field.
+     */
+    private void bool(String name, boolean value) throws IOException {
+        name(name);
+        putAscii(value ? "true" : "false");
+    }
+
+    /**
+     * Writes an amount with two decimals, for example 1299.50, without formatting through a String.
+     */
+    private void price(String name, double value) throws IOException {
+        name(name);
+        reserve(MAX_SCALAR);
+        long cents = Math.round(value * 100);
+        if (cents < 0) {
+            buffer.put((byte) '-');
+            cents = -cents;
+        }
+        putLong(cents / 100);
+        buffer.put((byte) '.');
+        buffer.put((byte) ('0' + cents % 100 / 10));
+        buffer.put((byte) ('0' + cents % 10));
+    }
+
+    /**
+     * Writes an epoch day as an ISO date such as 2026-12-24, quoted in JSON.
+     */
+    private void date(String name, long epochDay) throws IOException {
+        name(name);
+        reserve(MAX_SCALAR);
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        boolean json = format == ExportFormat.JSON;
+        if (json) {
+            buffer.put((byte) '"');
+        }
+        putLong(date.getYear());
+        buffer.put((byte) '-');
+        putTwoDigits(date.getMonthValue());
+        buffer.put((byte) '-');
+        putTwoDigits(date.getDayOfMonth());
+        if (json) {
+            buffer.put((byte) '"');
+        }
+    }
+
+    /**
+     * Writes a string value as UTF-8, quoted and escaped as the format requires.
+     * CSV values are only quoted when they contain a comma, quote or line break.
+     */
+    private void putText(String value) throws IOException {
+        boolean json = format == ExportFormat.JSON;
+        boolean quoted = json || needsCsvQuotes(value);
+        if (quoted) {
+            putAscii('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            reserve(6);
+            if (c == '"') {
+                buffer.put(json ? (byte) '\\' : (byte) '"').put((byte) '"');
+            } else if (json && c == '\\') {
+                buffer.put((byte) '\\').put((byte) '\\');
+            } else if (json && c < 0x20) {
+                buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                        .put(hexDigit(c >> 4)).put(hexDigit(c));
+            } else if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+            }
+        }
+        if (quoted) {
+            putAscii('"');
+        }
+    }
+
+    /**
+     * Checks if a CSV value contains a character that requires quoting it.
+     */
+    private static boolean needsCsvQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the lowercase hexadecimal digit of the low four bits of a value.
+     */
+    private static byte hexDigit(int value) {
+        return (byte) "0123456789abcdef".charAt(value & 0xF);
+    }
+
+    /**
+     * Writes a non-negative long in decimal. The caller has reserved room for it.
+     */
+    private void putLong(long value) {
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Writes a number from 0 to 99 as two digits. The caller has reserved room for it.
+     */
+    private void putTwoDigits(int value) {
+        buffer.put((byte) ('0' + value / 10)).put((byte) ('0' + value % 10));
+    }
+
+    /**
+     * Writes an ASCII character.
+     */
+    private void putAscii(char c) throws IOException {
+        reserve(1);
+        buffer.put((byte) c);
+    }
+
+    /**
+     * Writes an ASCII string that is shorter than the buffer.
+     */
+    private void putAscii(String text) throws IOException {
+        reserve(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * Makes room for the given number of bytes, writing the buffer out if it is too full.
+     */
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    /**
+     * Writes everything in the buffer to the channel and clears it for reuse.
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -1,27 +1,124 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Represents a Hotel with a name, a list of rooms, reservations, and a base price.
+ * Room and reservation bookkeeping is guarded by the hotel's monitor. A hotel may
+ * take a room's lock while holding its own, but never the other way around.
+ * Every change also publishes a new immutable HotelSnapshot, which readers take without the lock.
  */
 public class Hotel {
+    /** The earliest date a stay may start on or a rate change may begin on. */
+    public static final LocalDate EARLIEST_DATE = LocalDate.of(2000, 1, 1);
+    /** The latest date a stay may end on or a rate change may end on. */
+    public static final LocalDate LATEST_DATE = LocalDate.of(2199, 12, 31);
+    /** The longest name of a hotel, room or guest, in characters, so that it always fits a journal record. */
+    public static final int MAX_NAME_LENGTH = 1000;
+
     private String name;
     private ArrayList<Room> rooms;
-    private ArrayList<Reservation> reservations;
+    private ArrayList<Room> detachedRooms;
+    private LongReservationMap reservations;
+    private long lastReservationId;
+    private HashMap<String, Room> roomsByName;
+    private HashMap<String, ArrayList<Reservation>> reservationsByGuest;
     private double basePrice;
+    private Journal journal;
+    private long revenueCents;
+    private HashMap<Room, long[]> revenueByRoom;
+    private TreeMap<YearMonth, long[]> revenueByMonth;
+    private OccupancyIndex occupancy;
+    private HashMap<Class<? extends Room>, RoomTypeIndex> roomTypes;
+    private RoomTable table;
+    private RateCalendar rates;
+    private BookingEventBus events;
+    private Waitlist waitlist;
+    private volatile HotelSnapshot snapshot;
 
     /**
      * Constructs a new Hotel with the specified name and base price.
      *
      * @param name      the name of the hotel
      * @param basePrice the base price of the hotel
+     * @throws IllegalArgumentException if the name is longer than MAX_NAME_LENGTH
      */
     public Hotel(String name, double basePrice) {
+        checkName(name);
         this.name = name;
         this.basePrice = basePrice;
         this.rooms = new ArrayList<>();
-        this.reservations = new ArrayList<>();
+        this.detachedRooms = new ArrayList<>();
+        this.reservations = new LongReservationMap();
+        this.roomsByName = new HashMap<>();
+        this.reservationsByGuest = new HashMap<>();
+        this.revenueByRoom = new HashMap<>();
+        this.revenueByMonth = new TreeMap<>();
+        this.occupancy = new OccupancyIndex();
+        this.roomTypes = new HashMap<>();
+        this.rates = new RateCalendar();
+        this.waitlist = new Waitlist();
+        this.snapshot = new HotelSnapshot(0, name, basePrice, 0, PersistentRoomList.empty(),
+                PersistentReservationMap.empty());
+    }
+
+    /**
+     * Checks if a range of dates lies within the window the hotel supports, from EARLIEST_DATE
+     * to LATEST_DATE. Keeping every booking inside one bounded window keeps the calendars and
+     * indexes that span a hotel's nights small, however far apart its bookings are.
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return true if both dates are within the window, false otherwise
+     */
+    public static boolean isWithinWindow(LocalDate from, LocalDate to) {
+        return !from.isBefore(EARLIEST_DATE) && !from.isAfter(LATEST_DATE)
+                && !to.isBefore(EARLIEST_DATE) && !to.isAfter(LATEST_DATE);
+    }
+
+    /**
+     * Throws IllegalArgumentException if a range of dates is outside the supported window.
+     */
+    private static void checkWindow(LocalDate from, LocalDate to) {
+        if (!isWithinWindow(from, to)) {
+            throw new IllegalArgumentException("Dates must be between " + EARLIEST_DATE + " and " + LATEST_DATE);
+        }
+    }
+
+    /**
+     * Throws IllegalArgumentException if a stay does not cover at least one night.
+     */
+    private static void checkStay(LocalDate checkIn, LocalDate checkOut) {
+        if (!checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Check-out date must be after the check-in date");
+        }
+    }
+
+    /**
+     * Checks if a name of a hotel, room or guest is short enough to be stored.
+     * A name of at most MAX_NAME_LENGTH characters encodes to at most three times as many UTF-8 bytes.
+     *
+     * @param name the name
+     * @return true if the name is at most MAX_NAME_LENGTH characters long, false otherwise
+     */
+    public static boolean isValidName(String name) {
+        return name.length() <= MAX_NAME_LENGTH;
+    }
+
+    /**
+     * Throws IllegalArgumentException if a name is too long to be stored.
+     */
+    private static void checkName(String name) {
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Names must be at most " + MAX_NAME_LENGTH + " characters long");
+        }
     }
 
     /**
@@ -37,13 +134,59 @@ public class Hotel {
      * Sets the name of the hotel.
      *
      * @param name the new name of the hotel
+     * @throws IllegalArgumentException if the name is longer than MAX_NAME_LENGTH
      */
     public void setName(String name) {
-        this.name = name;
+        checkName(name);
+        long position;
+        synchronized (this) {
+            position = journal == null ? 0 : journal.hotelRenamed(this.name, name);
+            this.name = name;
+            publish(snapshot.getRooms(), snapshot.getReservationMap());
+        }
+        commit(position);
     }
 
     /**
-     * Gets the list of rooms in the hotel.
+     * Gets the base price of the hotel.
+     *
+     * @return the base price of the hotel
+     */
+    public double getBasePrice() {
+        return basePrice;
+    }
+
+    /**
+     * Attaches the journal that every later change to this hotel is written to.
+     *
+     * @param journal the journal to write changes to, or null to stop journaling
+     */
+    public synchronized void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Attaches the event bus that every later booking, cancellation and room change is published to.
+     *
+     * @param events the event bus to publish to, or null to stop publishing
+     */
+    public synchronized void setEventBus(BookingEventBus events) {
+        this.events = events;
+    }
+
+    /**
+     * Gets the latest snapshot of the hotel. No lock is taken, and the snapshot stays
+     * consistent however long it is read while the hotel keeps changing.
+     *
+     * @return the current snapshot
+     */
+    public HotelSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the live list of rooms in the hotel. The caller must hold the hotel's lock while
+     * reading it; readers that do not need the lock should use snapshot() instead.
      *
      * @return the list of rooms
      */
@@ -52,40 +195,317 @@ public class Hotel {
     }
 
     /**
-     * Gets the list of reservations in the hotel.
+     * Gets the rooms that were removed from the hotel but still hold some of its reservations,
+     * as restored from a snapshot.
      *
-     * @return the list of reservations
+     * @return a copy of the list of removed rooms, empty if there are none
      */
-    public ArrayList<Reservation> getReservations() {
-        return reservations;
+    public synchronized List<Room> getDetachedRooms() {
+        return detachedRooms.isEmpty() ? List.of() : new ArrayList<>(detachedRooms);
     }
 
     /**
-     * Adds a new room to the hotel.
+     * Records a room that was removed from the hotel but still holds some of its reservations,
+     * when restoring a snapshot.
+     *
+     * @param room the removed room
+     */
+    synchronized void addDetachedRoom(Room room) {
+        detachedRooms.add(room);
+    }
+
+    /**
+     * Gets the live reservations in the hotel, in no particular order. The caller must hold
+     * the hotel's lock while reading them; readers that do not need the lock should use
+     * snapshot() instead.
+     *
+     * @return a read-only view of the reservations
+     */
+    public Collection<Reservation> getReservations() {
+        return reservations.values();
+    }
+
+    /**
+     * Adds a new room to the hotel if no other room already has its name.
      *
      * @param room the room to be added
+     * @return true if the room was added, false if the name is already taken
+     * @throws IllegalArgumentException if the room's name is longer than MAX_NAME_LENGTH
+     */
+    public boolean addRoom(Room room) {
+        return addRoom(room, true);
+    }
+
+    /**
+     * Adds a new room, as described for addRoom(Room).
+     * Replaying the journal and restoring a snapshot do not book waiting requests, since the bookings
+     * were journaled too.
+     *
+     * @param room           the room to be added
+     * @param fulfilWaitlist true to book waiting requests into the new room
+     * @return true if the room was added, false if the name is already taken
      */
-    public void addRoom(Room room) {
+    boolean addRoom(Room room, boolean fulfilWaitlist) {
+        checkName(room.getName());
+        long position;
+        synchronized (this) {
+            if (findRoom(room.getName()) != null) {
+                return false;
+            }
+            roomsByName.put(room.getName(), room);
+            attachRoom(room);
+            publish(snapshot.getRooms().plus(room), snapshot.getReservationMap());
+            position = journal == null ? 0 : journal.roomAdded(name, room);
+            if (fulfilWaitlist) {
+                position = fulfilWaitlist(List.of(room), LocalDate.now().toEpochDay(), position);
+            }
+        }
+        commit(position);
+        return true;
+    }
+
+    /**
+     * Adds standard rooms named "Room 1" to "Room n" to a hotel that has no rooms yet,
+     * storing them compactly in a RoomTable instead of as one object graph per room.
+     *
+     * @param count         the number of rooms to add
+     * @param pricePerNight the price per night of every room
+     * @return true if the rooms were added, false if the hotel already has rooms
+     */
+    public boolean addCompactRooms(int count, double pricePerNight) {
+        return addCompactRooms(count, pricePerNight, true);
+    }
+
+    /**
+     * Adds compact standard rooms, as described for addCompactRooms(int, double).
+     * Replaying the journal does not book waiting requests, since the bookings were journaled too.
+     *
+     * @param count          the number of rooms to add
+     * @param pricePerNight  the price per night of every room
+     * @param fulfilWaitlist true to book waiting requests into the new rooms
+     * @return true if the rooms were added, false if the hotel already has rooms
+     */
+    boolean addCompactRooms(int count, double pricePerNight, boolean fulfilWaitlist) {
+        long position;
+        synchronized (this) {
+            if (!rooms.isEmpty() || table != null) {
+                return false;
+            }
+            table = new RoomTable();
+            rooms.ensureCapacity(count);
+            for (int i = 0; i < count; i++) {
+                attachRoom(table.add(RoomTable.STANDARD, null, pricePerNight));
+            }
+            publish(PersistentRoomList.of(rooms), snapshot.getReservationMap());
+            position = journal == null ? 0 : journal.compactRoomsAdded(name, count, pricePerNight);
+            if (fulfilWaitlist) {
+                position = fulfilWaitlist(rooms, LocalDate.now().toEpochDay(), position);
+            }
+        }
+        commit(position);
+        return true;
+    }
+
+    /**
+     * Adds rooms named "Room n", numbered on from the highest such number already taken, in one
+     * step under the hotel's lock and with a single journal commit. Waiting requests that fit the
+     * new rooms are booked into them. If the hotel keeps its rooms in a
+     * RoomTable, the new rooms are added to the table too.
+     *
+     * @param deluxe        true for deluxe rooms, false for standard rooms
+     * @param count         the number of rooms to add
+     * @param pricePerNight the price per night of every room
+     * @return the rooms that were added
+     */
+    public List<Room> addRooms(boolean deluxe, int count, double pricePerNight) {
+        ArrayList<Room> added = new ArrayList<>(count);
+        long position = 0;
+        synchronized (this) {
+            int number = nextRoomNumber();
+            PersistentRoomList published = snapshot.getRooms();
+            rooms.ensureCapacity(rooms.size() + count);
+            while (added.size() < count) {
+                String roomName = RoomTable.DEFAULT_NAME_PREFIX + number++;
+                if (findRoom(roomName) != null) {
+                    continue;
+                }
+                Room room;
+                if (table != null) {
+                    room = table.add(deluxe ? RoomTable.DELUXE : RoomTable.STANDARD, roomName, pricePerNight);
+                } else {
+                    room = deluxe ? new DeluxeRoom(roomName, pricePerNight) : new StandardRoom(roomName, pricePerNight);
+                    roomsByName.put(roomName, room);
+                }
+                attachRoom(room);
+                published = published.plus(room);
+                position = journal == null ? 0 : journal.roomAdded(name, room);
+                added.add(room);
+            }
+            publish(published, snapshot.getReservationMap());
+            position = fulfilWaitlist(added, LocalDate.now().toEpochDay(), position);
+        }
+        commit(position);
+        return added;
+    }
+
+    /**
+     * Gets the number following the highest n of the rooms named "Room n", in one pass over the rooms.
+     * The caller must hold the hotel's lock.
+     *
+     * @return the next room number, 1 if no room is named that way
+     */
+    private int nextRoomNumber() {
+        String prefix = RoomTable.DEFAULT_NAME_PREFIX;
+        int highest = 0;
+        for (Room room : rooms) {
+            String roomName = room.getName();
+            if (roomName.startsWith(prefix) && roomName.length() > prefix.length()
+                    && roomName.length() <= prefix.length() + 9) {
+                int number = 0;
+                for (int i = prefix.length(); i < roomName.length() && number >= 0; i++) {
+                    char c = roomName.charAt(i);
+                    number = c >= '0' && c <= '9' ? number * 10 + (c - '0') : -1;
+                }
+                highest = Math.max(highest, number);
+            }
+        }
+        return highest + 1;
+    }
+
+    /**
+     * Adds a single room to the hotel's RoomTable, for example when restoring a snapshot.
+     * The change is not journaled.
+     *
+     * @param deluxe        true for a deluxe room, false for a standard room
+     * @param roomName      the name of the room
+     * @param pricePerNight the price per night of the room
+     * @return the view of the new room, or null if the name is already taken
+     * @throws IllegalArgumentException if the name is longer than MAX_NAME_LENGTH
+     */
+    public synchronized Room addCompactRoom(boolean deluxe, String roomName, double pricePerNight) {
+        checkName(roomName);
+        if (findRoom(roomName) != null) {
+            return null;
+        }
+        if (table == null) {
+            table = new RoomTable();
+        }
+        Room room = table.add(deluxe ? RoomTable.DELUXE : RoomTable.STANDARD, roomName, pricePerNight);
+        attachRoom(room);
+        publish(snapshot.getRooms().plus(room), snapshot.getReservationMap());
+        return room;
+    }
+
+    /**
+     * Adds a room to the room list and the index of its type. The caller must hold the hotel's lock
+     * and publishes the new snapshot.
+     *
+     * @param room the room to attach
+     */
+    private void attachRoom(Room room) {
         rooms.add(room);
+        roomTypes.computeIfAbsent(room.getClass(), type -> new RoomTypeIndex()).addRoom(room);
+        publishRoomEvent(BookingEventType.ROOM_ADDED, room.getName(), room.getPricePerNight());
+    }
+
+    /**
+     * Finds a room by name among both the named rooms and the rooms of the RoomTable.
+     * The caller must hold the hotel's lock.
+     *
+     * @param roomName the name of the room
+     * @return the room, or null if no room has the name
+     */
+    private Room findRoom(String roomName) {
+        Room room = roomsByName.get(roomName);
+        if (room == null && table != null) {
+            room = table.find(roomName);
+        }
+        return room;
     }
 
     /**
      * Removes a room from the hotel by its name if it has no active reservations.
      *
      * @param roomName the name of the room to be removed
+     * @return true if the room was removed, false otherwise
+     */
+    public boolean removeRoom(String roomName) {
+        long position;
+        synchronized (this) {
+            Room room = findRoom(roomName);
+            if (room == null || !noActiveReservations(room)) {
+                return false;
+            }
+            if (room.isCompact()) {
+                table.remove(roomName);
+            } else {
+                roomsByName.remove(roomName);
+            }
+            rooms.remove(room);
+            roomTypes.get(room.getClass()).removeRoom(room);
+            publish(snapshot.getRooms().minus(room), snapshot.getReservationMap());
+            publishRoomEvent(BookingEventType.ROOM_REMOVED, roomName, room.getPricePerNight());
+            position = journal == null ? 0 : journal.roomRemoved(name, roomName);
+        }
+        commit(position);
+        return true;
+    }
+
+    /**
+     * Renames a room of the hotel, keeping the room-name index in sync.
+     *
+     * @param oldName the current name of the room
+     * @param newName the new name for the room
+     * @return true if the room was renamed, false if it does not exist or the new name is taken
+     * @throws IllegalArgumentException if the new name is longer than MAX_NAME_LENGTH
      */
-    public void removeRoom(String roomName) {
-        rooms.removeIf(room -> room.getName().equals(roomName) && noActiveReservations(roomName));
+    public boolean renameRoom(String oldName, String newName) {
+        checkName(newName);
+        long position;
+        synchronized (this) {
+            Room room = findRoom(oldName);
+            if (room == null || findRoom(newName) != null) {
+                return false;
+            }
+            if (!room.isCompact()) {
+                roomsByName.remove(oldName);
+                roomsByName.put(newName, room);
+            }
+            room.renameRoom(newName);
+            if (events != null) {
+                events.publish(BookingEventType.ROOM_RENAMED, name, newName, oldName, null, 0, 0, 0,
+                        room.getPricePerNight());
+            }
+            position = journal == null ? 0 : journal.roomRenamed(name, oldName, newName);
+        }
+        commit(position);
+        return true;
+    }
+
+    /**
+     * Updates the price per night of a room of the hotel.
+     *
+     * @param room          the room whose price is updated
+     * @param pricePerNight the new price per night
+     */
+    public void updateRoomPrice(Room room, double pricePerNight) {
+        long position;
+        synchronized (this) {
+            room.setPricePerNight(pricePerNight);
+            publishRoomEvent(BookingEventType.ROOM_PRICE_CHANGED, room.getName(), pricePerNight);
+            position = journal == null ? 0 : journal.roomPriceUpdated(name, room.getName(), pricePerNight);
+        }
+        commit(position);
     }
 
     /**
      * Checks if there are no active reservations for a given room.
      *
-     * @param roomName the name of the room
+     * @param room the room to check
      * @return true if there are no active reservations for the room, false otherwise
      */
-    private boolean noActiveReservations(String roomName) {
-        return reservations.stream().noneMatch(reservation -> reservation.getRoom().getName().equals(roomName));
+    public boolean noActiveReservations(Room room) {
+        return !room.hasReservations();
     }
 
     /**
@@ -94,7 +514,70 @@ public class Hotel {
      * @param basePrice the new base price
      */
     public void updateBasePrice(double basePrice) {
-        this.basePrice = basePrice;
+        long position;
+        synchronized (this) {
+            this.basePrice = basePrice;
+            publish(snapshot.getRooms(), snapshot.getReservationMap());
+            publishRoomEvent(BookingEventType.BASE_PRICE_CHANGED, null, basePrice);
+            position = journal == null ? 0 : journal.basePriceUpdated(name, basePrice);
+        }
+        commit(position);
+    }
+
+    /**
+     * Gets the hotel's nightly rate multipliers.
+     *
+     * @return the rate calendar
+     */
+    public RateCalendar getRates() {
+        return rates;
+    }
+
+    /**
+     * Modifies the rate of every night from one date up to, but not including, another.
+     * Existing reservations keep the price they were booked at.
+     *
+     * @param from       the first night of the range
+     * @param to         the day after the last night of the range
+     * @param multiplier the multiplier applied to each room's price per night
+     * @throws IllegalArgumentException if the range is outside the supported window
+     */
+    public void updateRates(LocalDate from, LocalDate to, double multiplier) {
+        checkWindow(from, to);
+        long position;
+        synchronized (this) {
+            rates.setMultiplier(from.toEpochDay(), to.toEpochDay(), multiplier);
+            if (events != null) {
+                events.publish(BookingEventType.RATES_CHANGED, name, null, null, null, 0, from.toEpochDay(),
+                        to.toEpochDay(), multiplier);
+            }
+            position = journal == null ? 0 : journal.ratesUpdated(name, from, to, multiplier);
+        }
+        commit(position);
+    }
+
+    /**
+     * Quotes the total price of a stay in a room at the current nightly rates.
+     * Quoting takes no lock and allocates nothing.
+     *
+     * @param room     the room
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @return the total price of the stay
+     */
+    public double quote(Room room, LocalDate checkIn, LocalDate checkOut) {
+        return rates.quote(room.getPricePerNight(), checkIn.toEpochDay(), checkOut.toEpochDay());
+    }
+
+    /**
+     * Gets a room's rate for the night of a date.
+     *
+     * @param room the room
+     * @param date the date of the night
+     * @return the rate for the night
+     */
+    public double getNightlyRate(Room room, LocalDate date) {
+        return rates.quote(room.getPricePerNight(), date.toEpochDay(), date.toEpochDay() + 1);
     }
 
     /**
@@ -103,16 +586,646 @@ public class Hotel {
      * @param reservation the reservation to be added
      */
     public void addReservation(Reservation reservation) {
-        reservations.add(reservation);
+        long position;
+        synchronized (this) {
+            position = recordReservation(reservation);
+            publish(snapshot.getRooms(), snapshot.getReservationMap().plus(reservation));
+        }
+        commit(position);
     }
 
     /**
-     * Removes a reservation from the hotel by the guest's name.
+     * Gets the id given to the most recent reservation, including reservations since cancelled.
      *
-     * @param guestName the name of the guest whose reservation is to be removed
+     * @return the last reservation id, or 0 if no reservation has been made
+     */
+    public synchronized long getLastReservationId() {
+        return lastReservationId;
+    }
+
+    /**
+     * Restores the id sequence saved with a snapshot, so that new reservations never reuse
+     * the id of one that was cancelled before the snapshot was taken.
+     *
+     * @param id the last reservation id that was given out
+     */
+    public synchronized void restoreLastReservationId(long id) {
+        lastReservationId = Math.max(lastReservationId, id);
+    }
+
+    /**
+     * Records a reservation in the hotel's lists and indexes and appends it to the journal.
+     * A reservation without an id is given the next one; a restored reservation keeps its own.
+     * The caller must hold the hotel's lock and publishes the new snapshot.
+     *
+     * @param reservation the reservation to be recorded
+     * @return the journal position to commit, or 0 if the hotel is not journaled
+     */
+    private long recordReservation(Reservation reservation) {
+        if (reservation.getId() == 0) {
+            reservation.assignId(++lastReservationId);
+        } else {
+            lastReservationId = Math.max(lastReservationId, reservation.getId());
+        }
+        reservations.put(reservation.getId(), reservation);
+        reservation.getRoom().addReservation(reservation);
+        reservationsByGuest.computeIfAbsent(reservation.getGuestName(), guest -> new ArrayList<>(1)).add(reservation);
+        addRevenue(reservation, 1);
+        occupancy.add(reservation.getCheckIn().toEpochDay(), reservation.getCheckOut().toEpochDay(), 1);
+        markRoomType(reservation, true);
+        publishReservationEvent(BookingEventType.RESERVATION_ADDED, reservation);
+        return journal == null ? 0 : journal.reservationAdded(name, reservation);
+    }
+
+    /**
+     * Books a room for a guest and records the reservation if every night is available.
+     * The nights are claimed under the room's lock only; if the room has been removed from the
+     * hotel by the time the reservation is recorded, the nights are released again.
+     *
+     * @param guestName the name of the guest
+     * @param room      the room to book
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @return the new reservation, or null if the room is not available or no longer in the hotel
+     * @throws IllegalArgumentException if the check-out date is not after the check-in date,
+     *                                  the stay is outside the supported window, or the name is too long
+     */
+    public Reservation book(String guestName, Room room, LocalDate checkIn, LocalDate checkOut) {
+        checkName(guestName);
+        checkWindow(checkIn, checkOut);
+        checkStay(checkIn, checkOut);
+        long started = System.nanoTime();
+        Reservation reservation = null;
+        long position = 0;
+        if (room.tryBook(checkIn, checkOut)) {
+            synchronized (this) {
+                if (findRoom(room.getName()) == room) {
+                    reservation = new Reservation(guestName, room, checkIn, checkOut, quote(room, checkIn, checkOut));
+                    position = recordReservation(reservation);
+                    publish(snapshot.getRooms(), snapshot.getReservationMap().plus(reservation));
+                } else {
+                    room.cancelBooking(checkIn, checkOut);
+                    position = fulfilWaitlist(List.of(room), checkIn.toEpochDay(), position);
+                }
+            }
+        }
+        commit(position);
+        Metrics.BOOK.record(started, reservation != null);
+        return reservation;
+    }
+
+    /**
+     * Finds a room of the given type that is free for every night of a stay, using the
+     * hotel's per-type index rather than checking each room.
+     *
+     * @param type     the type of room, such as StandardRoom.class or DeluxeRoom.class
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @param policy   how to choose between several free rooms
+     * @return a free room of the type, or null if there is none or the stay is outside the supported window
+     */
+    public Room findAvailableRoom(Class<? extends Room> type, LocalDate checkIn, LocalDate checkOut,
+                                  AllocationPolicy policy) {
+        long started = System.nanoTime();
+        Room room = null;
+        synchronized (this) {
+            RoomTypeIndex index = isWithinWindow(checkIn, checkOut) ? roomTypes.get(type) : null;
+            int slot = index == null ? -1 : index.find(checkIn.toEpochDay(), checkOut.toEpochDay(), policy, null);
+            if (slot >= 0) {
+                room = index.getRoom(slot);
+            }
+        }
+        Metrics.LOOKUP.record(started, room != null);
+        return room;
+    }
+
+    /**
+     * Gets every room of the given type that is free for every night of a stay.
+     *
+     * @param type     the type of room, or null for rooms of any type
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @return the free rooms, empty if the stay is outside the supported window
+     */
+    public List<Room> findAvailableRooms(Class<? extends Room> type, LocalDate checkIn, LocalDate checkOut) {
+        long started = System.nanoTime();
+        ArrayList<Room> available = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<Class<? extends Room>, RoomTypeIndex> entry : roomTypes.entrySet()) {
+                if ((type == null || entry.getKey() == type) && isWithinWindow(checkIn, checkOut)) {
+                    entry.getValue().collectFree(checkIn.toEpochDay(), checkOut.toEpochDay(), available);
+                }
+            }
+        }
+        Metrics.LOOKUP.record(started, !available.isEmpty());
+        return available;
+    }
+
+    /**
+     * Books any room of the given type for a guest, chosen by the allocation policy.
+     * A room whose calendar turns out to be taken by a booking that has not been recorded
+     * yet is skipped and the search continues with the remaining rooms.
+     *
+     * @param guestName the name of the guest
+     * @param type      the type of room, such as StandardRoom.class or DeluxeRoom.class
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param policy    how to choose between several free rooms
+     * @return the new reservation, or null if no room of the type is available
+     * @throws IllegalArgumentException if the stay is outside the supported window or the name is too long
+     */
+    public Reservation bookRoomOfType(String guestName, Class<? extends Room> type, LocalDate checkIn,
+                                      LocalDate checkOut, AllocationPolicy policy) {
+        checkName(guestName);
+        checkWindow(checkIn, checkOut);
+        long started = System.nanoTime();
+        Reservation reservation = reserveRoomOfType(guestName, type, checkIn, checkOut, policy);
+        Metrics.BOOK.record(started, reservation != null);
+        return reservation;
+    }
+
+    /**
+     * Books any room of the given type for a guest, as described for bookRoomOfType, without timing it.
+     *
+     * @param guestName the name of the guest
+     * @param type      the type of room
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param policy    how to choose between several free rooms
+     * @return the new reservation, or null if no room of the type is available
+     */
+    private Reservation reserveRoomOfType(String guestName, Class<? extends Room> type, LocalDate checkIn,
+                                          LocalDate checkOut, AllocationPolicy policy) {
+        Reservation reservation;
+        long position;
+        synchronized (this) {
+            Room room = claimRoomOfType(type, checkIn, checkOut, policy);
+            if (room == null) {
+                return null;
+            }
+            reservation = new Reservation(guestName, room, checkIn, checkOut, quote(room, checkIn, checkOut));
+            position = recordReservation(reservation);
+            publish(snapshot.getRooms(), snapshot.getReservationMap().plus(reservation));
+        }
+        commit(position);
+        return reservation;
+    }
+
+    /**
+     * Claims the nights of a stay on the calendar of a free room of the given type, chosen by the
+     * allocation policy. The caller must hold the hotel's lock and records the reservation.
+     *
+     * @param type     the type of room
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @param policy   how to choose between several free rooms
+     * @return the room whose nights were claimed, or null if no room of the type is available
+     */
+    private Room claimRoomOfType(Class<? extends Room> type, LocalDate checkIn, LocalDate checkOut,
+                                 AllocationPolicy policy) {
+        long from = checkIn.toEpochDay();
+        long to = checkOut.toEpochDay();
+        RoomTypeIndex index = roomTypes.get(type);
+        if (index == null || from >= to) {
+            return null;
+        }
+        long[] excluded = null;
+        while (true) {
+            int slot = index.find(from, to, policy, excluded);
+            if (slot < 0) {
+                return null;
+            }
+            Room room = index.getRoom(slot);
+            if (room.tryBook(checkIn, checkOut)) {
+                return room;
+            }
+            if (excluded == null) {
+                excluded = new long[(slot >>> 6) + 1];
+            } else if (excluded.length <= slot >>> 6) {
+                excluded = Arrays.copyOf(excluded, (slot >>> 6) + 1);
+            }
+            excluded[slot >>> 6] |= 1L << slot;
+        }
+    }
+
+    /**
+     * Books any room of the given type for a guest if one is free, or else puts the request on the
+     * hotel's waitlist to be booked automatically when a cancellation frees nights it fits into.
+     * Trying to book and joining the waitlist happen under one lock, so no cancellation can slip in between.
+     * Requests are journaled and saved in snapshots, and are dropped once their check-in date has passed.
+     *
+     * @param guestName the name of the guest
+     * @param type      the type of room, such as StandardRoom.class or DeluxeRoom.class
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param priority  the priority of the request on the waitlist; higher values are served first
+     * @return the waitlist entry, already fulfilled if a room was free
+     * @throws IllegalArgumentException if the check-out date is not after the check-in date,
+     *                                  the stay is outside the supported window, the name is too long,
+     *                                  or the hotel has no room of the type
+     */
+    public WaitlistEntry bookOrWait(String guestName, Class<? extends Room> type, LocalDate checkIn,
+                                    LocalDate checkOut, int priority) {
+        checkName(guestName);
+        checkWindow(checkIn, checkOut);
+        checkStay(checkIn, checkOut);
+        long started = System.nanoTime();
+        WaitlistEntry entry;
+        long position = 0;
+        synchronized (this) {
+            if (!hasRoomsOfType(type)) {
+                throw new IllegalArgumentException("The hotel has no rooms of type " + type.getSimpleName());
+            }
+            Room room = claimRoomOfType(type, checkIn, checkOut, AllocationPolicy.BEST_FIT);
+            if (room == null) {
+                dropExpiredWaitlist();
+                entry = waitlist.add(guestName, type, checkIn, checkOut, priority);
+                position = journal == null ? 0 : journal.waitlistJoined(name, entry);
+            } else {
+                entry = new WaitlistEntry(guestName, type, checkIn, checkOut, priority, 0);
+                Reservation reservation = new Reservation(guestName, room, checkIn, checkOut,
+                        quote(room, checkIn, checkOut));
+                position = recordReservation(reservation);
+                publish(snapshot.getRooms(), snapshot.getReservationMap().plus(reservation));
+                entry.fulfil(reservation);
+            }
+        }
+        commit(position);
+        Metrics.BOOK.record(started, entry.isFulfilled());
+        return entry;
+    }
+
+    /**
+     * Checks if the hotel has any room of the given type, so a request for the type can wait for one.
+     *
+     * @param type the type of room, such as StandardRoom.class or DeluxeRoom.class
+     * @return true if at least one room of the type is in the hotel, false otherwise
+     */
+    public synchronized boolean hasRoomsOfType(Class<? extends Room> type) {
+        RoomTypeIndex index = roomTypes.get(type);
+        return index != null && !index.isEmpty();
+    }
+
+    /**
+     * Takes a request off the waitlist.
+     *
+     * @param entry the waitlist entry
+     * @return true if the request was still waiting, false if it was already fulfilled or removed
+     */
+    public boolean leaveWaitlist(WaitlistEntry entry) {
+        long position;
+        synchronized (this) {
+            if (!waitlist.remove(entry)) {
+                return false;
+            }
+            position = journal == null ? 0 : journal.waitlistWithdrawn(name, entry.getSequence());
+        }
+        commit(position);
+        return true;
+    }
+
+    /**
+     * Gets the number of requests on the waitlist.
+     *
+     * @return the number of waiting requests
+     */
+    public synchronized int getWaitlistSize() {
+        dropExpiredWaitlist();
+        return waitlist.size();
+    }
+
+    /**
+     * Gets the requests on the waitlist, in no particular order. The caller must hold the hotel's lock
+     * while reading them.
+     *
+     * @return the waitlist
+     */
+    public Waitlist getWaitlist() {
+        return waitlist;
+    }
+
+    /**
+     * Puts a request back on the waitlist with its original sequence number, for example when
+     * restoring a snapshot or replaying the journal. The change is not journaled.
+     *
+     * @param guestName the name of the guest
+     * @param type      the type of room wanted
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param priority  the priority of the request
+     * @param sequence  the sequence number of the request
+     */
+    public synchronized void restoreWaitlistEntry(String guestName, Class<? extends Room> type, LocalDate checkIn,
+                                                  LocalDate checkOut, int priority, long sequence) {
+        waitlist.restore(guestName, type, checkIn, checkOut, priority, sequence);
+    }
+
+    /**
+     * Restores the waitlist sequence saved with a snapshot, so that new requests never reuse
+     * the number of one that left the waitlist before the snapshot was taken.
+     *
+     * @param sequence the last waitlist sequence number that was given out
+     */
+    public synchronized void restoreLastWaitlistSequence(long sequence) {
+        waitlist.restoreLastSequence(sequence);
+    }
+
+    /**
+     * Takes a request off the waitlist by its sequence number when replaying the journal.
+     * The change is not journaled.
+     *
+     * @param sequence the sequence number of the request
+     */
+    synchronized void restoreWaitlistRemoval(long sequence) {
+        WaitlistEntry entry = waitlist.get(sequence);
+        if (entry != null) {
+            waitlist.remove(entry);
+        }
+    }
+
+    /**
+     * Drops the waiting requests whose check-in date has passed, since they can no longer be booked.
+     * The caller must hold the hotel's lock.
+     */
+    private void dropExpiredWaitlist() {
+        if (!waitlist.isEmpty()) {
+            waitlist.removeCheckingInBefore(LocalDate.now().toEpochDay());
+        }
+    }
+
+    /**
+     * Books waiting requests into the nights freed by removed reservations.
+     * The caller must hold the hotel's lock and has already journaled the removal.
+     *
+     * @param released the removed reservations
+     * @param position the journal position of the removal
+     * @return the journal position to commit
+     */
+    private long fulfilWaitlist(List<Reservation> released, long position) {
+        ArrayList<Room> freedRooms = new ArrayList<>(released.size());
+        long[] nights = new long[released.size()];
+        for (Reservation freed : released) {
+            nights[freedRooms.size()] = freed.getCheckIn().toEpochDay();
+            freedRooms.add(freed.getRoom());
+        }
+        return fulfilWaitlist(freedRooms, nights, position);
+    }
+
+    /**
+     * Books waiting requests into rooms that were just added or had a claimed stay rolled back.
+     * The caller must hold the hotel's lock and has already journaled the change.
+     *
+     * @param freedRooms the rooms to fill
+     * @param night      a free night of every room
+     * @param position   the journal position of the change
+     * @return the journal position to commit
+     */
+    private long fulfilWaitlist(List<Room> freedRooms, long night, long position) {
+        long[] nights = new long[freedRooms.size()];
+        Arrays.fill(nights, night);
+        return fulfilWaitlist(freedRooms, nights, position);
+    }
+
+    /**
+     * Books waiting requests into the runs of free nights around the given nights of the given rooms.
+     * For each room, every request for its type whose stay lies within the run is tried, highest
+     * priority first. Rooms that are no longer in the hotel are skipped.
+     *
+     * @param freedRooms the rooms to fill
+     * @param nights     a free night of each room
+     * @param position   the journal position of the change
+     * @return the journal position to commit
+     */
+    private long fulfilWaitlist(List<Room> freedRooms, long[] nights, long position) {
+        dropExpiredWaitlist();
+        if (waitlist.isEmpty()) {
+            return position;
+        }
+        long started = System.nanoTime();
+        ArrayList<Reservation> booked = new ArrayList<>();
+        for (int i = 0; i < freedRooms.size() && !waitlist.isEmpty(); i++) {
+            Room room = freedRooms.get(i);
+            if (findRoom(room.getName()) != room) {
+                continue;
+            }
+            long[] run = room.getFreeRun(nights[i]);
+            for (WaitlistEntry entry : waitlist.findFitting(room.getClass(), run[0], run[1])) {
+                if (room.tryBook(entry.getCheckIn(), entry.getCheckOut())) {
+                    Reservation reservation = new Reservation(entry.getGuestName(), room, entry.getCheckIn(),
+                            entry.getCheckOut(), quote(room, entry.getCheckIn(), entry.getCheckOut()));
+                    position = Math.max(position, recordReservation(reservation));
+                    if (journal != null) {
+                        position = journal.waitlistFulfilled(name, entry.getSequence(), reservation.getId());
+                    }
+                    booked.add(reservation);
+                    waitlist.remove(entry);
+                    entry.fulfil(reservation);
+                }
+            }
+        }
+        if (!booked.isEmpty()) {
+            publish(snapshot.getRooms(), snapshot.getReservationMap().plusAll(booked));
+        }
+        Metrics.WAITLIST.record(started, !booked.isEmpty());
+        return position;
+    }
+
+    /**
+     * Applies a batch of booking requests.
+     * Requests are grouped by room name and each room is looked up once. Each room's group is
+     * sorted by check-in date and applied to its calendar in one pass while holding that room's lock once.
+     * The whole batch shares a single journal commit and publishes a single snapshot.
+     * The batch counts as a failure in the metrics if any request conflicted with a booked night.
+     *
+     * @param requests the booking requests to apply
+     * @return the outcome of each request, in the same order as the requests
+     */
+    public List<BookingOutcome> bookBatch(List<BookingRequest> requests) {
+        long started = System.nanoTime();
+        BookingOutcome[] outcomes = new BookingOutcome[requests.size()];
+        HashMap<String, ArrayList<Integer>> byRoom = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            byRoom.computeIfAbsent(requests.get(i).getRoomName(), roomName -> new ArrayList<>()).add(i);
+        }
+        long position = 0;
+        boolean conflicted = false;
+
+        synchronized (this) {
+            ArrayList<Reservation> booked = new ArrayList<>();
+            for (Map.Entry<String, ArrayList<Integer>> group : byRoom.entrySet()) {
+                Room room = findRoom(group.getKey());
+                ArrayList<Integer> positions = new ArrayList<>(group.getValue().size());
+                for (int i : group.getValue()) {
+                    BookingRequest request = requests.get(i);
+                    if (room == null) {
+                        outcomes[i] = BookingOutcome.UNKNOWN_ROOM;
+                    } else if (!request.getCheckOut().isAfter(request.getCheckIn())
+                            || !isWithinWindow(request.getCheckIn(), request.getCheckOut())) {
+                        outcomes[i] = BookingOutcome.INVALID_DATES;
+                    } else if (!isValidName(request.getGuestName())) {
+                        outcomes[i] = BookingOutcome.INVALID_NAME;
+                    } else {
+                        positions.add(i);
+                    }
+                }
+                if (positions.isEmpty()) {
+                    continue;
+                }
+                positions.sort(Comparator.comparing(i -> requests.get(i).getCheckIn()));
+                ArrayList<BookingRequest> roomRequests = new ArrayList<>(positions.size());
+                for (int i : positions) {
+                    roomRequests.add(requests.get(i));
+                }
+
+                boolean[] free = room.tryBook(roomRequests);
+                for (int j = 0; j < free.length; j++) {
+                    BookingRequest request = roomRequests.get(j);
+                    if (free[j]) {
+                        Reservation reservation = new Reservation(request.getGuestName(), room, request.getCheckIn(),
+                                request.getCheckOut(), quote(room, request.getCheckIn(), request.getCheckOut()));
+                        position = recordReservation(reservation);
+                        booked.add(reservation);
+                    }
+                    outcomes[positions.get(j)] = free[j] ? BookingOutcome.BOOKED : BookingOutcome.CONFLICT;
+                    conflicted |= !free[j];
+                }
+            }
+            publish(snapshot.getRooms(), snapshot.getReservationMap().plusAll(booked));
+        }
+        commit(position);
+        Metrics.BOOK_BATCH.record(started, !conflicted);
+        return Arrays.asList(outcomes);
+    }
+
+    /**
+     * Removes every reservation of a guest from the hotel and makes their nights available again,
+     * booking any waiting requests that now fit into them.
+     *
+     * @param guestName the name of the guest whose reservations are to be removed
      */
     public void removeReservation(String guestName) {
-        reservations.removeIf(reservation -> reservation.getGuestName().equals(guestName));
+        removeReservation(guestName, true);
+    }
+
+    /**
+     * Removes every reservation of a guest, as described for removeReservation(String).
+     * Replaying the journal does not book waiting requests, since the bookings were journaled too.
+     *
+     * @param guestName      the name of the guest whose reservations are to be removed
+     * @param fulfilWaitlist true to book waiting requests into the freed nights
+     */
+    void removeReservation(String guestName, boolean fulfilWaitlist) {
+        long started = System.nanoTime();
+        long position;
+        synchronized (this) {
+            ArrayList<Reservation> guestReservations = reservationsByGuest.remove(guestName);
+            if (guestReservations == null) {
+                Metrics.CANCEL.record(started, false);
+                return;
+            }
+            PersistentReservationMap remaining = snapshot.getReservationMap();
+            for (Reservation reservation : guestReservations) {
+                reservations.remove(reservation.getId());
+                releaseReservation(reservation);
+                remaining = remaining.minus(reservation.getId());
+            }
+            publish(snapshot.getRooms(), remaining);
+            position = journal == null ? 0 : journal.reservationRemoved(name, guestName);
+            if (fulfilWaitlist) {
+                position = fulfilWaitlist(guestReservations, position);
+            }
+        }
+        commit(position);
+        Metrics.CANCEL.record(started);
+    }
+
+    /**
+     * Cancels a single reservation by its id and makes its nights available again,
+     * booking any waiting requests that now fit into them.
+     *
+     * @param id the id of the reservation
+     * @return the cancelled reservation, or null if the hotel has no reservation with the id
+     */
+    public Reservation cancelReservation(long id) {
+        return cancelReservation(id, true);
+    }
+
+    /**
+     * Cancels a single reservation by its id, as described for cancelReservation(long).
+     * Replaying the journal does not book waiting requests, since the bookings were journaled too.
+     *
+     * @param id             the id of the reservation
+     * @param fulfilWaitlist true to book waiting requests into the freed nights
+     * @return the cancelled reservation, or null if the hotel has no reservation with the id
+     */
+    Reservation cancelReservation(long id, boolean fulfilWaitlist) {
+        long started = System.nanoTime();
+        Reservation reservation;
+        long position;
+        synchronized (this) {
+            reservation = reservations.remove(id);
+            if (reservation == null) {
+                Metrics.CANCEL.record(started, false);
+                return null;
+            }
+            ArrayList<Reservation> guestReservations = reservationsByGuest.get(reservation.getGuestName());
+            guestReservations.remove(reservation);
+            if (guestReservations.isEmpty()) {
+                reservationsByGuest.remove(reservation.getGuestName());
+            }
+            releaseReservation(reservation);
+            publish(snapshot.getRooms(), snapshot.getReservationMap().minus(id));
+            position = journal == null ? 0 : journal.reservationCancelled(name, id);
+            if (fulfilWaitlist) {
+                position = fulfilWaitlist(List.of(reservation), position);
+            }
+        }
+        commit(position);
+        Metrics.CANCEL.record(started);
+        return reservation;
+    }
+
+    /**
+     * Releases a removed reservation's nights and takes it out of the room and the running totals.
+     * The caller must hold the hotel's lock and has already removed it from the id and guest indexes.
+     *
+     * @param reservation the removed reservation
+     */
+    private void releaseReservation(Reservation reservation) {
+        Room room = reservation.getRoom();
+        room.cancelBooking(reservation.getCheckIn(), reservation.getCheckOut());
+        room.removeReservation(reservation);
+        addRevenue(reservation, -1);
+        occupancy.add(reservation.getCheckIn().toEpochDay(), reservation.getCheckOut().toEpochDay(), -1);
+        markRoomType(reservation, false);
+        publishReservationEvent(BookingEventType.RESERVATION_CANCELLED, reservation);
+    }
+
+    /**
+     * Publishes a reservation event if an event bus is attached. The caller must hold the hotel's lock.
+     *
+     * @param type        the kind of change
+     * @param reservation the reservation that was added or cancelled
+     */
+    private void publishReservationEvent(BookingEventType type, Reservation reservation) {
+        if (events != null) {
+            events.publish(type, name, reservation.getRoom().getName(), null, reservation.getGuestName(),
+                    reservation.getId(), reservation.getCheckIn().toEpochDay(),
+                    reservation.getCheckOut().toEpochDay(), reservation.getTotalPrice());
+        }
+    }
+
+    /**
+     * Publishes a room or price event if an event bus is attached. The caller must hold the hotel's lock.
+     *
+     * @param type     the kind of change
+     * @param roomName the name of the room, or null for a change to the whole hotel
+     * @param amount   the room's price per night, or the new base price
+     */
+    private void publishRoomEvent(BookingEventType type, String roomName, double amount) {
+        if (events != null) {
+            events.publish(type, name, roomName, null, null, 0, 0, 0, amount);
+        }
     }
 
     /**
@@ -122,7 +1235,13 @@ public class Hotel {
      * @return the room with the specified name, or null if no such room exists
      */
     public Room getRoom(String roomName) {
-        return rooms.stream().filter(room -> room.getName().equals(roomName)).findFirst().orElse(null);
+        long started = System.nanoTime();
+        Room room;
+        synchronized (this) {
+            room = findRoom(roomName);
+        }
+        Metrics.LOOKUP.record(started, room != null);
+        return room;
     }
 
     /**
@@ -132,7 +1251,157 @@ public class Hotel {
      * @return the reservation for the specified guest, or null if no such reservation exists
      */
     public Reservation getReservation(String guestName) {
-        return reservations.stream().filter(reservation -> reservation.getGuestName().equals(guestName)).findFirst().orElse(null);
+        long started = System.nanoTime();
+        Reservation reservation;
+        synchronized (this) {
+            ArrayList<Reservation> guestReservations = reservationsByGuest.get(guestName);
+            reservation = guestReservations == null ? null : guestReservations.get(0);
+        }
+        Metrics.LOOKUP.record(started, reservation != null);
+        return reservation;
+    }
+
+    /**
+     * Gets every reservation of a guest, in the order they were made.
+     *
+     * @param guestName the name of the guest
+     * @return a copy of the guest's reservations, empty if there are none
+     */
+    public synchronized List<Reservation> getReservations(String guestName) {
+        ArrayList<Reservation> guestReservations = reservationsByGuest.get(guestName);
+        return guestReservations == null ? new ArrayList<>() : new ArrayList<>(guestReservations);
+    }
+
+    /**
+     * Gets a reservation by its id.
+     *
+     * @param id the id of the reservation
+     * @return the reservation, or null if the hotel has no reservation with the id
+     */
+    public Reservation getReservation(long id) {
+        long started = System.nanoTime();
+        Reservation reservation;
+        synchronized (this) {
+            reservation = reservations.get(id);
+        }
+        Metrics.LOOKUP.record(started, reservation != null);
+        return reservation;
+    }
+
+    /**
+     * Adds a reservation's total price to the running revenue totals, or subtracts it.
+     * The totals are kept in whole cents, so removing every reservation brings them back
+     * to exactly zero instead of leaving floating-point residue.
+     * Monthly revenue is attributed to the month of check-in.
+     * The caller must hold the hotel's lock.
+     *
+     * @param reservation the reservation added or removed
+     * @param sign        1 when the reservation is added, -1 when it is removed
+     */
+    private void addRevenue(Reservation reservation, int sign) {
+        long cents = sign * Math.round(reservation.getTotalPrice() * 100);
+        revenueCents += cents;
+        revenueByRoom.computeIfAbsent(reservation.getRoom(), room -> new long[1])[0] += cents;
+        revenueByMonth.computeIfAbsent(YearMonth.from(reservation.getCheckIn()), month -> new long[1])[0] += cents;
+    }
+
+    /**
+     * Marks a reservation's nights as booked or available in the index of its room's type.
+     * The caller must hold the hotel's lock.
+     *
+     * @param reservation the reservation added or removed
+     * @param booked      true when the reservation is added, false when it is removed
+     */
+    private void markRoomType(Reservation reservation, boolean booked) {
+        Room room = reservation.getRoom();
+        RoomTypeIndex index = roomTypes.get(room.getClass());
+        if (index != null) {
+            index.mark(room, reservation.getCheckIn().toEpochDay(), reservation.getCheckOut().toEpochDay(), booked);
+        }
+    }
+
+    /**
+     * Gets the estimated earnings of the hotel from all of its reservations.
+     * The total is kept up to date as reservations are added and removed. Each reservation's
+     * price is fixed when it is made, so later price changes do not affect it.
+     *
+     * @return the estimated earnings
+     */
+    public double getEstimatedEarnings() {
+        long started = System.nanoTime();
+        double earnings;
+        synchronized (this) {
+            earnings = revenueCents / 100.0;
+        }
+        Metrics.REPORT.record(started);
+        return earnings;
+    }
+
+    /**
+     * Gets the earnings from the reservations of a room.
+     *
+     * @param room the room
+     * @return the earnings of the room
+     */
+    public double getRoomEarnings(Room room) {
+        long started = System.nanoTime();
+        double earnings;
+        synchronized (this) {
+            long[] total = revenueByRoom.get(room);
+            earnings = total == null ? 0 : total[0] / 100.0;
+        }
+        Metrics.REPORT.record(started);
+        return earnings;
+    }
+
+    /**
+     * Gets the earnings from the reservations checking in during a month.
+     *
+     * @param month the month
+     * @return the earnings of the month
+     */
+    public double getMonthlyEarnings(YearMonth month) {
+        long started = System.nanoTime();
+        double earnings;
+        synchronized (this) {
+            long[] total = revenueByMonth.get(month);
+            earnings = total == null ? 0 : total[0] / 100.0;
+        }
+        Metrics.REPORT.record(started);
+        return earnings;
+    }
+
+    /**
+     * Gets the number of rooms booked on the night of the specified date.
+     *
+     * @param date the date to check
+     * @return the number of booked rooms
+     */
+    public int getBookedRooms(LocalDate date) {
+        long started = System.nanoTime();
+        int booked;
+        synchronized (this) {
+            booked = occupancy.getBooked(date.toEpochDay());
+        }
+        Metrics.REPORT.record(started);
+        return booked;
+    }
+
+    /**
+     * Gets the total number of booked room-nights from one date up to, but not including, another.
+     *
+     * @param from the first night of the range
+     * @param to   the day after the last night of the range
+     * @return the number of booked room-nights
+     */
+    public long getBookedRoomNights(LocalDate from, LocalDate to) {
+        long started = System.nanoTime();
+        long nights;
+        synchronized (this) {
+            nights = occupancy.getBookedNights(from.toEpochDay(), to.toEpochDay());
+        }
+        Metrics.REPORT.record(started);
+        return nights;
     }
 
     /**
@@ -140,8 +1409,34 @@ public class Hotel {
      *
      * @return true if there are no reservations, false otherwise
      */
-    public boolean hasNoReservations() {
-        return reservations.isEmpty();
+    public synchronized boolean hasNoReservations() {
+        return reservations.size() == 0;
+    }
+
+    /**
+     * Publishes the next snapshot of the hotel with the given rooms and reservations and the
+     * current name, base price and revenue. The caller must hold the hotel's lock.
+     *
+     * @param rooms        the rooms of the new snapshot
+     * @param reservations the reservations of the new snapshot
+     */
+    private void publish(PersistentRoomList rooms, PersistentReservationMap reservations) {
+        snapshot = new HotelSnapshot(snapshot.getVersion() + 1, name, basePrice, revenueCents, rooms, reservations);
+    }
+
+    /**
+     * Waits until the journal has made every change up to the given position durable.
+     * This is done after releasing the hotel's lock so that concurrent changes share one sync.
+     *
+     * @param position the journal position to wait for, or 0 if nothing was journaled
+     */
+    private void commit(long position) {
+        Journal target = journal;
+        if (position != 0 && target != null) {
+            long started = System.nanoTime();
+            target.commit(position);
+            Metrics.JOURNAL_COMMIT.record(started);
+        }
     }
 
     /**
@@ -0,0 +1,131 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds every hotel of the system, keyed by name ignoring case.
+ * Lookups and name checks are constant time, and adding a hotel or renaming one
+ * claims the new name atomically, so the registry can be shared between threads.
+ * Hotels are also kept in the order they were added, for menus that list them.
+ * Once an event bus is attached, every hotel in the registry and every hotel added later publishes to it.
+ */
+public class HotelRegistry {
+    private final ConcurrentHashMap<String, Hotel> byName = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Hotel> hotels = new CopyOnWriteArrayList<>();
+    private final Object renameLock = new Object();
+    private volatile BookingEventBus events;
+
+    /**
+     * Adds a hotel unless another hotel already has its name, ignoring case.
+     *
+     * @param hotel the hotel to add
+     * @return true if the hotel was added, false if the name is already taken
+     */
+    public boolean add(Hotel hotel) {
+        if (byName.putIfAbsent(normalize(hotel.getName()), hotel) != null) {
+            return false;
+        }
+        BookingEventBus bus = events;
+        if (bus != null) {
+            hotel.setEventBus(bus);
+        }
+        hotels.add(hotel);
+        return true;
+    }
+
+    /**
+     * Attaches an event bus to every hotel of the registry and to every hotel added from now on.
+     *
+     * @param events the event bus to publish to, or null to stop publishing
+     */
+    public synchronized void setEventBus(BookingEventBus events) {
+        this.events = events;
+        for (Hotel hotel : hotels) {
+            hotel.setEventBus(events);
+        }
+    }
+
+    /**
+     * Renames a hotel of the registry unless another hotel already has the new name, ignoring case.
+     * A hotel may be renamed to a different capitalization of its own name.
+     *
+     * @param hotel   the hotel to rename
+     * @param newName the new name for the hotel
+     * @return true if the hotel was renamed, false if the new name is already taken
+     * @throws IllegalArgumentException if the new name is longer than Hotel.MAX_NAME_LENGTH
+     */
+    public boolean rename(Hotel hotel, String newName) {
+        if (!Hotel.isValidName(newName)) {
+            throw new IllegalArgumentException("Names must be at most " + Hotel.MAX_NAME_LENGTH + " characters long");
+        }
+        synchronized (renameLock) {
+            String oldKey = normalize(hotel.getName());
+            String newKey = normalize(newName);
+            if (!oldKey.equals(newKey) && byName.putIfAbsent(newKey, hotel) != null) {
+                return false;
+            }
+            hotel.setName(newName);
+            if (!oldKey.equals(newKey)) {
+                byName.remove(oldKey, hotel);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Gets a hotel by its name, ignoring case.
+     *
+     * @param name the name of the hotel
+     * @return the hotel, or null if no hotel has the name
+     */
+    public Hotel get(String name) {
+        return byName.get(normalize(name));
+    }
+
+    /**
+     * Checks if a hotel already has the given name, ignoring case.
+     *
+     * @param name the name to check
+     * @return true if the name is taken, false otherwise
+     */
+    public boolean contains(String name) {
+        return byName.containsKey(normalize(name));
+    }
+
+    /**
+     * Gets the hotels in the order they were added. The list can be iterated while
+     * hotels are being added, and it cannot be modified.
+     *
+     * @return the hotels
+     */
+    public List<Hotel> getHotels() {
+        return Collections.unmodifiableList(hotels);
+    }
+
+    /**
+     * Gets the number of hotels.
+     *
+     * @return the number of hotels
+     */
+    public int size() {
+        return hotels.size();
+    }
+
+    /**
+     * Checks if there are no hotels.
+     *
+     * @return true if there are no hotels, false otherwise
+     */
+    public boolean isEmpty() {
+        return hotels.isEmpty();
+    }
+
+    /**
+     * Returns the key a name is stored under, so that names differing only in case collide.
+     */
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,92 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Searches every hotel for rooms available over a stay and returns the cheapest matches.
+ * Hotels are searched in parallel on the common fork-join pool. Each worker keeps only
+ * the best matches it has seen in a bounded max-heap, and the heaps are merged at the end,
+ * so the full list of available rooms is never sorted.
+ */
+public class HotelSearch {
+    private static final Comparator<SearchResult> BY_PRICE = Comparator.comparingDouble(SearchResult::getTotalPrice);
+
+    private HotelSearch() {
+    }
+
+    /**
+     * Finds the cheapest rooms available for every night of a stay across all hotels.
+     *
+     * @param hotels   the hotels to search
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @param type     the type of room, or null for rooms of any type
+     * @param limit    the maximum number of results
+     * @return up to limit results, cheapest first
+     */
+    public static List<SearchResult> search(List<Hotel> hotels, LocalDate checkIn, LocalDate checkOut,
+                                            Class<? extends Room> type, int limit) {
+        if (limit <= 0 || !checkOut.isAfter(checkIn)) {
+            return new ArrayList<>();
+        }
+        long started = System.nanoTime();
+        TopResults top = hotels.parallelStream().collect(
+                () -> new TopResults(limit),
+                (results, hotel) -> {
+                    for (Room room : hotel.findAvailableRooms(type, checkIn, checkOut)) {
+                        results.offer(hotel, room, hotel.quote(room, checkIn, checkOut));
+                    }
+                },
+                TopResults::merge);
+        List<SearchResult> results = top.toSortedList();
+        Metrics.SEARCH.record(started, !results.isEmpty());
+        return results;
+    }
+
+    /**
+     * Keeps the cheapest results offered so far in a max-heap of bounded size,
+     * so the most expensive kept result can be evicted in logarithmic time.
+     */
+    private static class TopResults {
+        private final int limit;
+        private final PriorityQueue<SearchResult> heap;
+
+        TopResults(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, BY_PRICE.reversed());
+        }
+
+        /**
+         * Keeps a room if it is cheaper than the most expensive kept result, or there is still room.
+         * Nothing is allocated for rooms that are too expensive to keep.
+         */
+        void offer(Hotel hotel, Room room, double totalPrice) {
+            if (heap.size() < limit) {
+                heap.add(new SearchResult(hotel, room, totalPrice));
+            } else if (totalPrice < heap.peek().getTotalPrice()) {
+                heap.poll();
+                heap.add(new SearchResult(hotel, room, totalPrice));
+            }
+        }
+
+        /**
+         * Adds the results kept by another worker.
+         */
+        void merge(TopResults other) {
+            for (SearchResult result : other.heap) {
+                offer(result.getHotel(), result.getRoom(), result.getTotalPrice());
+            }
+        }
+
+        /**
+         * Returns the kept results, cheapest first.
+         */
+        List<SearchResult> toSortedList() {
+            ArrayList<SearchResult> sorted = new ArrayList<>(heap);
+            sorted.sort(BY_PRICE);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.Collection;
+
+/**
+ * An immutable version of a hotel's rooms, reservations and totals at one point in time.
+ * A hotel publishes a new snapshot after every change, sharing the unchanged parts of the
+ * room list and reservation trie with the previous one, so taking a snapshot is free and
+ * reading one never blocks or is blocked by bookings. The snapshot pins which rooms and
+ * reservations exist; a room's name and price are still read from the live room.
+ */
+public class HotelSnapshot {
+    private final long version;
+    private final String name;
+    private final double basePrice;
+    private final long revenueCents;
+    private final PersistentRoomList rooms;
+    private final PersistentReservationMap reservations;
+
+    /**
+     * Constructs a new HotelSnapshot.
+     *
+     * @param version      the number of changes made to the hotel before this snapshot
+     * @param name         the name of the hotel
+     * @param basePrice    the base price of the hotel
+     * @param revenueCents the total price of all reservations, in cents
+     * @param rooms        the rooms of the hotel
+     * @param reservations the reservations of the hotel by id
+     */
+    public HotelSnapshot(long version, String name, double basePrice, long revenueCents,
+                         PersistentRoomList rooms, PersistentReservationMap reservations) {
+        this.version = version;
+        this.name = name;
+        this.basePrice = basePrice;
+        this.revenueCents = revenueCents;
+        this.rooms = rooms;
+        this.reservations = reservations;
+    }
+
+    /**
+     * Gets the version of the snapshot. Later snapshots of the same hotel have higher versions.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the name of the hotel.
+     *
+     * @return the name of the hotel
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the base price of the hotel.
+     *
+     * @return the base price
+     */
+    public double getBasePrice() {
+        return basePrice;
+    }
+
+    /**
+     * Gets the rooms of the hotel in the order they were added.
+     *
+     * @return the immutable list of rooms
+     */
+    public PersistentRoomList getRooms() {
+        return rooms;
+    }
+
+    /**
+     * Gets the reservations of the hotel keyed by id.
+     *
+     * @return the immutable reservation map
+     */
+    public PersistentReservationMap getReservationMap() {
+        return reservations;
+    }
+
+    /**
+     * Gets the reservations of the hotel, in no particular order.
+     *
+     * @return a read-only view of the reservations
+     */
+    public Collection<Reservation> getReservations() {
+        return reservations.values();
+    }
+
+    /**
+     * Gets a reservation by its id.
+     *
+     * @param id the id of the reservation
+     * @return the reservation, or null if there was no reservation with the id
+     */
+    public Reservation getReservation(long id) {
+        return reservations.get(id);
+    }
+
+    /**
+     * Gets the estimated earnings of the hotel from all of its reservations.
+     *
+     * @return the estimated earnings
+     */
+    public double getEstimatedEarnings() {
+        return revenueCents / 100.0;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Summarizes a bulk import of reservations.
+ */
+public class ImportResult {
+    private long rows;
+    private long booked;
+    private long rejected;
+    private long elapsedNanos;
+
+    /**
+     * Constructs a new ImportResult.
+     *
+     * @param rows         the number of data rows read, excluding the header and blank lines
+     * @param booked       the number of rows booked
+     * @param rejected     the number of rows rejected
+     * @param elapsedNanos the duration of the import in nanoseconds
+     */
+    public ImportResult(long rows, long booked, long rejected, long elapsedNanos) {
+        this.rows = rows;
+        this.booked = booked;
+        this.rejected = rejected;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of data rows read.
+     *
+     * @return the number of rows
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of rows that were booked.
+     *
+     * @return the number of booked rows
+     */
+    public long getBooked() {
+        return booked;
+    }
+
+    /**
+     * Gets the number of rows that were rejected.
+     *
+     * @return the number of rejected rows
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Gets the duration of the import.
+     *
+     * @return the duration in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns a string representation of the result.
+     *
+     * @return a string representation of the result
+     */
+    @Override
+    public String toString() {
+        return String.format("imported %d of %d rows, %d rejected in %.3f s", booked, rows, rejected, elapsedNanos / 1e9);
+    }
+}
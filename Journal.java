@@ -0,0 +1,712 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only write-ahead journal of every change made to the hotels.
+ * Changes are appended as compact binary records and made durable with group commit:
+ * the first thread to commit writes and syncs every record appended so far,
+ * while the others wait for that sync instead of issuing their own.
+ * On startup the journal is replayed to rebuild the hotels, rooms, reservations and waitlists.
+ * Replayed cancellations do not book waiting requests again; the bookings they made were journaled themselves.
+ * A journaled booking that cannot be replayed stops the replay with an error rather than being dropped.
+ *
+ * Each record is laid out as [int length][byte type][payload][int crc32],
+ * where the length covers the type and payload and the checksum covers the same bytes.
+ * A torn record at the end of the file is discarded when the journal is opened.
+ */
+public class Journal implements Closeable {
+    private static final byte HOTEL_CREATED = 1;
+    private static final byte HOTEL_RENAMED = 2;
+    private static final byte BASE_PRICE_UPDATED = 3;
+    private static final byte ROOM_ADDED = 4;
+    private static final byte ROOM_REMOVED = 5;
+    private static final byte ROOM_RENAMED = 6;
+    private static final byte ROOM_PRICE_UPDATED = 7;
+    // Reservations added before ids existed; replayed with a newly assigned id. Records written
+    // before total prices were journaled end after the check-out day and are priced at replay
+    private static final byte RESERVATION_ADDED = 8;
+    private static final byte RESERVATION_REMOVED = 9;
+    private static final byte COMPACT_ROOMS_ADDED = 10;
+    private static final byte RATES_UPDATED = 11;
+    private static final byte RESERVATION_BOOKED = 12;
+    private static final byte RESERVATION_CANCELLED = 13;
+    private static final byte WAITLIST_JOINED = 14;
+    private static final byte WAITLIST_FULFILLED = 15;
+    private static final byte WAITLIST_WITHDRAWN = 16;
+
+    private static final byte STANDARD_ROOM = 0;
+    private static final byte DELUXE_ROOM = 1;
+
+    private static final int HEADER_SIZE = 4;
+    private static final int CHECKSUM_SIZE = 4;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private long appended;
+    private int recordStart;
+    private long durable;
+    private boolean flushing;
+    private volatile boolean deferred;
+    private IOException failure;
+
+    /**
+     * Constructs a Journal writing to the given channel from the given position.
+     *
+     * @param channel the channel of the journal file
+     * @param end     the position after the last valid record
+     */
+    private Journal(FileChannel channel, long end) {
+        this.channel = channel;
+        this.appended = end;
+        this.durable = end;
+    }
+
+    /**
+     * Opens the journal at the given path, replays it into the list of hotels and
+     * attaches the journal to every replayed hotel.
+     *
+     * @param path   the journal file, created if it does not exist
+     * @param hotels the list to add the replayed hotels to
+     * @return the opened journal
+     * @throws IOException if the journal cannot be read or opened for writing
+     */
+    public static Journal open(Path path, List<Hotel> hotels) throws IOException {
+        return open(path, hotels, 0);
+    }
+
+    /**
+     * Opens the journal at the given path and replays only the records from the given
+     * position, on top of hotels already restored from a snapshot covering the records before it.
+     *
+     * @param path   the journal file, created if it does not exist
+     * @param hotels the restored hotels, to which replayed hotels are added
+     * @param from   the journal position covered by the snapshot
+     * @return the opened journal
+     * @throws IOException if the journal cannot be read or opened for writing
+     */
+    public static Journal open(Path path, List<Hotel> hotels, long from) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long end = replay(channel, Math.min(from, channel.size()), hotels);
+            channel.truncate(end);
+            channel.position(end);
+            Journal journal = new Journal(channel, end);
+            for (Hotel hotel : hotels) {
+                hotel.setJournal(journal);
+            }
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the creation of a hotel, attaches the journal to the hotel so that its
+     * later changes are journaled too, and waits until the creation is durable.
+     *
+     * @param hotel the hotel that was created
+     */
+    public void hotelCreated(Hotel hotel) {
+        long position;
+        synchronized (this) {
+            int start = begin(HOTEL_CREATED);
+            putString(hotel.getName());
+            putDouble(hotel.getBasePrice());
+            position = end(start);
+        }
+        hotel.setJournal(this);
+        commit(position);
+    }
+
+    /**
+     * Appends the renaming of a hotel.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long hotelRenamed(String oldName, String newName) {
+        int start = begin(HOTEL_RENAMED);
+        putString(oldName);
+        putString(newName);
+        return end(start);
+    }
+
+    /**
+     * Appends a change to the base price of a hotel.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long basePriceUpdated(String hotelName, double basePrice) {
+        int start = begin(BASE_PRICE_UPDATED);
+        putString(hotelName);
+        putDouble(basePrice);
+        return end(start);
+    }
+
+    /**
+     * Appends the addition of a room to a hotel.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long roomAdded(String hotelName, Room room) {
+        int start = begin(ROOM_ADDED);
+        putString(hotelName);
+        ensureCapacity(1);
+        pending.put(room instanceof DeluxeRoom ? DELUXE_ROOM : STANDARD_ROOM);
+        putString(room.getName());
+        putDouble(room.getPricePerNight());
+        return end(start);
+    }
+
+    /**
+     * Appends a change to the nightly rate multiplier of a range of nights.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long ratesUpdated(String hotelName, LocalDate from, LocalDate to, double multiplier) {
+        int start = begin(RATES_UPDATED);
+        putString(hotelName);
+        putDay(from);
+        putDay(to);
+        putDouble(multiplier);
+        return end(start);
+    }
+
+    /**
+     * Appends the addition of standard rooms named "Room 1" to "Room n", stored in a RoomTable.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long compactRoomsAdded(String hotelName, int count, double pricePerNight) {
+        int start = begin(COMPACT_ROOMS_ADDED);
+        putString(hotelName);
+        ensureCapacity(4);
+        pending.putInt(count);
+        putDouble(pricePerNight);
+        return end(start);
+    }
+
+    /**
+     * Appends the removal of a room from a hotel.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long roomRemoved(String hotelName, String roomName) {
+        int start = begin(ROOM_REMOVED);
+        putString(hotelName);
+        putString(roomName);
+        return end(start);
+    }
+
+    /**
+     * Appends the renaming of a room.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long roomRenamed(String hotelName, String oldName, String newName) {
+        int start = begin(ROOM_RENAMED);
+        putString(hotelName);
+        putString(oldName);
+        putString(newName);
+        return end(start);
+    }
+
+    /**
+     * Appends a change to the price per night of a room.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long roomPriceUpdated(String hotelName, String roomName, double pricePerNight) {
+        int start = begin(ROOM_PRICE_UPDATED);
+        putString(hotelName);
+        putString(roomName);
+        putDouble(pricePerNight);
+        return end(start);
+    }
+
+    /**
+     * Appends a new reservation, whose nights were booked in its room.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long reservationAdded(String hotelName, Reservation reservation) {
+        int start = begin(RESERVATION_BOOKED);
+        putString(hotelName);
+        ensureCapacity(8);
+        pending.putLong(reservation.getId());
+        putString(reservation.getGuestName());
+        putString(reservation.getRoom().getName());
+        putDay(reservation.getCheckIn());
+        putDay(reservation.getCheckOut());
+        putDouble(reservation.getTotalPrice());
+        return end(start);
+    }
+
+    /**
+     * Appends the removal of a guest's reservations, whose nights were released.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long reservationRemoved(String hotelName, String guestName) {
+        int start = begin(RESERVATION_REMOVED);
+        putString(hotelName);
+        putString(guestName);
+        return end(start);
+    }
+
+    /**
+     * Appends the cancellation of a single reservation by its id.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long reservationCancelled(String hotelName, long id) {
+        int start = begin(RESERVATION_CANCELLED);
+        putString(hotelName);
+        ensureCapacity(8);
+        pending.putLong(id);
+        return end(start);
+    }
+
+    /**
+     * Appends a request joining a hotel's waitlist.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long waitlistJoined(String hotelName, WaitlistEntry entry) {
+        int start = begin(WAITLIST_JOINED);
+        putString(hotelName);
+        ensureCapacity(8);
+        pending.putLong(entry.getSequence());
+        putString(entry.getGuestName());
+        ensureCapacity(1);
+        pending.put(entry.getType() == DeluxeRoom.class ? DELUXE_ROOM : STANDARD_ROOM);
+        putDay(entry.getCheckIn());
+        putDay(entry.getCheckOut());
+        ensureCapacity(4);
+        pending.putInt(entry.getPriority());
+        return end(start);
+    }
+
+    /**
+     * Appends the booking of a waiting request, whose reservation was journaled just before.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long waitlistFulfilled(String hotelName, long sequence, long reservationId) {
+        int start = begin(WAITLIST_FULFILLED);
+        putString(hotelName);
+        ensureCapacity(16);
+        pending.putLong(sequence);
+        pending.putLong(reservationId);
+        return end(start);
+    }
+
+    /**
+     * Appends a request leaving a hotel's waitlist without being booked.
+     *
+     * @return the journal position to commit
+     */
+    public synchronized long waitlistWithdrawn(String hotelName, long sequence) {
+        int start = begin(WAITLIST_WITHDRAWN);
+        putString(hotelName);
+        ensureCapacity(8);
+        pending.putLong(sequence);
+        return end(start);
+    }
+
+    /**
+     * Gets the position after the last appended record.
+     *
+     * @return the current end of the journal
+     */
+    public synchronized long getPosition() {
+        return appended;
+    }
+
+    /**
+     * Turns deferred syncing on or off. While it is on, commit returns at once and records
+     * are only written and synced by flush or close, so a long batch of changes pays for
+     * one sync instead of one per change. A crash loses the changes made since the last flush.
+     *
+     * @param deferred true to defer syncing, false to sync on every commit again
+     */
+    public void setDeferred(boolean deferred) {
+        this.deferred = deferred;
+    }
+
+    /**
+     * Waits until every record up to the given position has been written and synced,
+     * unless syncing is deferred.
+     *
+     * @param position the journal position to make durable
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    public void commit(long position) {
+        if (!deferred) {
+            sync(position);
+        }
+    }
+
+    /**
+     * Writes and syncs every record appended so far, even if syncing is deferred.
+     *
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    public void flush() {
+        sync(getPosition());
+    }
+
+    /**
+     * Waits until every record up to the given position has been written and synced.
+     * If no sync is in progress the calling thread performs one for all appended records;
+     * otherwise it waits for the sync in progress and checks again.
+     * Once a write has failed, every later sync fails as well.
+     *
+     * @param position the journal position to make durable
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    private void sync(long position) {
+        ByteBuffer batch;
+        long end;
+        synchronized (this) {
+            while (durable < position && flushing) {
+                waitForFlush();
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Could not write to the journal", failure);
+            }
+            if (durable >= position) {
+                return;
+            }
+            flushing = true;
+            batch = pending;
+            pending = spare;
+            end = appended;
+        }
+
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+
+        synchronized (this) {
+            batch.clear();
+            spare = batch;
+            flushing = false;
+            if (error == null) {
+                durable = end;
+            } else {
+                failure = error;
+            }
+            notifyAll();
+        }
+        if (error != null) {
+            throw new UncheckedIOException("Could not write to the journal", error);
+        }
+    }
+
+    /**
+     * Syncs any remaining records and closes the journal file.
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        long position;
+        synchronized (this) {
+            position = appended;
+        }
+        sync(position);
+        channel.close();
+    }
+
+    /**
+     * Waits for the sync in progress to finish without giving up on interruption.
+     */
+    private void waitForFlush() {
+        boolean interrupted = false;
+        while (flushing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Starts a record of the given type in the pending buffer.
+     *
+     * @return the buffer offset of the record
+     */
+    private int begin(byte type) {
+        ensureCapacity(HEADER_SIZE + 1);
+        int start = pending.position();
+        recordStart = start;
+        pending.putInt(0);
+        pending.put(type);
+        return start;
+    }
+
+    /**
+     * Completes the record started at the given offset with its length and checksum.
+     *
+     * @return the journal position after the record
+     */
+    private long end(int start) {
+        int length = pending.position() - start - HEADER_SIZE;
+        crc.reset();
+        crc.update(pending.array(), start + HEADER_SIZE, length);
+        ensureCapacity(CHECKSUM_SIZE);
+        pending.putInt((int) crc.getValue());
+        pending.putInt(start, length);
+        appended += HEADER_SIZE + length + CHECKSUM_SIZE;
+        return appended;
+    }
+
+    /**
+     * Writes a string as its UTF-8 length in two bytes followed by the bytes.
+     * A string too long for the length field abandons the record rather than writing one that
+     * would pass its checksum but replay wrongly.
+     */
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            abandon();
+            throw new IllegalArgumentException("Cannot journal a string of " + bytes.length + " bytes");
+        }
+        ensureCapacity(2 + bytes.length);
+        pending.putShort((short) bytes.length);
+        pending.put(bytes);
+    }
+
+    /**
+     * Writes a date as its epoch day in four bytes, abandoning the record if it does not fit.
+     */
+    private void putDay(LocalDate date) {
+        long day = date.toEpochDay();
+        if (day != (int) day) {
+            abandon();
+            throw new IllegalArgumentException("Cannot journal the date " + date);
+        }
+        ensureCapacity(4);
+        pending.putInt((int) day);
+    }
+
+    /**
+     * Drops the partly written record from the pending buffer.
+     */
+    private void abandon() {
+        pending.position(recordStart);
+    }
+
+    private void putDouble(double value) {
+        ensureCapacity(8);
+        pending.putDouble(value);
+    }
+
+    /**
+     * Grows the pending buffer so that it can take the given number of additional bytes.
+     */
+    private void ensureCapacity(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+
+    /**
+     * Replays the records of the journal from the given position into the list of hotels.
+     *
+     * @param channel the channel of the journal file
+     * @param from    the position of the first record to replay
+     * @param hotels  the list of hotels to apply the records to
+     * @return the position after the last complete, valid record
+     * @throws IOException if the journal cannot be read, or a booking it records cannot be replayed
+     */
+    static long replay(FileChannel channel, long from, List<Hotel> hotels) throws IOException {
+        HashMap<String, Hotel> byName = new HashMap<>();
+        for (Hotel hotel : hotels) {
+            byName.put(hotel.getName(), hotel);
+        }
+        CRC32 checksum = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(2 * MAX_RECORD_SIZE);
+        long position = from;
+        long readPosition = from;
+
+        while (true) {
+            int read = channel.read(buffer, readPosition);
+            if (read > 0) {
+                readPosition += read;
+            }
+            buffer.flip();
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int start = buffer.position();
+                int length = buffer.getInt(start);
+                if (length <= 0 || length > MAX_RECORD_SIZE) {
+                    return position;
+                }
+                if (buffer.remaining() < HEADER_SIZE + length + CHECKSUM_SIZE) {
+                    break;
+                }
+                checksum.reset();
+                checksum.update(buffer.array(), start + HEADER_SIZE, length);
+                if ((int) checksum.getValue() != buffer.getInt(start + HEADER_SIZE + length)) {
+                    return position;
+                }
+                try {
+                    apply(buffer.slice(start + HEADER_SIZE, length), hotels, byName);
+                } catch (IllegalStateException e) {
+                    throw new IOException("Cannot replay the journal record at position " + position + ": "
+                            + e.getMessage(), e);
+                }
+                buffer.position(start + HEADER_SIZE + length + CHECKSUM_SIZE);
+                position += HEADER_SIZE + length + CHECKSUM_SIZE;
+            }
+            if (read <= 0) {
+                return position;
+            }
+            buffer.compact();
+        }
+    }
+
+    /**
+     * Applies a single record, starting at its type byte and limited to its length, to the hotels.
+     */
+    private static void apply(ByteBuffer record, List<Hotel> hotels, HashMap<String, Hotel> byName) {
+        byte type = record.get();
+        if (type == HOTEL_CREATED) {
+            // A hotel registered while a snapshot was taken can be in the snapshot and still be journaled after it
+            String name = getString(record);
+            double basePrice = record.getDouble();
+            if (byName.containsKey(name)) {
+                return;
+            }
+            Hotel hotel = new Hotel(name, basePrice);
+            hotels.add(hotel);
+            byName.put(hotel.getName(), hotel);
+            return;
+        }
+
+        Hotel hotel = byName.get(getString(record));
+        if (hotel == null) {
+            return;
+        }
+        switch (type) {
+            case HOTEL_RENAMED: {
+                String newName = getString(record);
+                byName.remove(hotel.getName());
+                hotel.setName(newName);
+                byName.put(newName, hotel);
+                break;
+            }
+            case BASE_PRICE_UPDATED:
+                hotel.updateBasePrice(record.getDouble());
+                break;
+            case ROOM_ADDED: {
+                byte roomType = record.get();
+                String roomName = getString(record);
+                double price = record.getDouble();
+                hotel.addRoom(roomType == DELUXE_ROOM ? new DeluxeRoom(roomName, price) : new StandardRoom(roomName, price), false);
+                break;
+            }
+            case RATES_UPDATED: {
+                LocalDate from = LocalDate.ofEpochDay(record.getInt());
+                LocalDate to = LocalDate.ofEpochDay(record.getInt());
+                double multiplier = record.getDouble();
+                if (Hotel.isWithinWindow(from, to)) {
+                    hotel.updateRates(from, to, multiplier);
+                }
+                break;
+            }
+            case COMPACT_ROOMS_ADDED:
+                hotel.addCompactRooms(record.getInt(), record.getDouble(), false);
+                break;
+            case ROOM_REMOVED:
+                hotel.removeRoom(getString(record));
+                break;
+            case ROOM_RENAMED:
+                hotel.renameRoom(getString(record), getString(record));
+                break;
+            case ROOM_PRICE_UPDATED: {
+                Room room = hotel.getRoom(getString(record));
+                double price = record.getDouble();
+                if (room != null) {
+                    hotel.updateRoomPrice(room, price);
+                }
+                break;
+            }
+            case RESERVATION_ADDED:
+            case RESERVATION_BOOKED: {
+                long id = type == RESERVATION_BOOKED ? record.getLong() : 0;
+                String guestName = getString(record);
+                Room room = hotel.getRoom(getString(record));
+                LocalDate checkIn = LocalDate.ofEpochDay(record.getInt());
+                LocalDate checkOut = LocalDate.ofEpochDay(record.getInt());
+                double totalPrice = record.remaining() >= Double.BYTES ? record.getDouble()
+                        : room == null ? 0 : hotel.quote(room, checkIn, checkOut);
+                if (id != 0 && hotel.getReservation(id) != null) {
+                    break;
+                }
+                if (room == null || !room.tryBook(checkIn, checkOut)) {
+                    throw new IllegalStateException("Reservation " + id + " of " + guestName + " from " + checkIn
+                            + " to " + checkOut + " cannot be booked in " + hotel.getName());
+                }
+                hotel.addReservation(new Reservation(id, guestName, room, checkIn, checkOut, totalPrice));
+                break;
+            }
+            case RESERVATION_REMOVED:
+                hotel.removeReservation(getString(record), false);
+                break;
+            case RESERVATION_CANCELLED:
+                hotel.cancelReservation(record.getLong(), false);
+                break;
+            case WAITLIST_JOINED: {
+                long sequence = record.getLong();
+                String guestName = getString(record);
+                Class<? extends Room> roomType = record.get() == DELUXE_ROOM ? DeluxeRoom.class : StandardRoom.class;
+                LocalDate checkIn = LocalDate.ofEpochDay(record.getInt());
+                LocalDate checkOut = LocalDate.ofEpochDay(record.getInt());
+                hotel.restoreWaitlistEntry(guestName, roomType, checkIn, checkOut, record.getInt(), sequence);
+                break;
+            }
+            case WAITLIST_FULFILLED:
+            case WAITLIST_WITHDRAWN:
+                hotel.restoreWaitlistRemoval(record.getLong());
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record type: " + type);
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getShort() & 0xFFFF];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,335 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs a non-interactive booking and cancellation load against a set of generated hotels.
+ * Worker threads drive Hotel and Room directly and the run ends with a report of
+ * throughput, conflict rate and latency percentiles.
+ *
+ * Options are given as --name=value, for example:
+ * java Main --simulate --seed=42 --hotels=10 --rooms=200 --threads=8 --operations=200000
+ *
+ * With --consumers=N the hotels publish to a BookingEventBus read by N counting consumers,
+ * and the report includes how many events each consumer handled or missed.
+ * With --metrics=true the report ends with the per-operation statistics kept by Metrics.
+ */
+public class LoadSimulation {
+    private long seed = 42;
+    private int hotelCount = 10;
+    private int roomsPerHotel = 100;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int operations = 100_000;
+    private double cancelRatio = 0.2;
+    private int horizonDays = 540;
+    private int maxStay = 7;
+    private boolean peakDates = false;
+    private int consumers = 0;
+    private int eventCapacity = 1 << 16;
+    private boolean metrics = false;
+
+    /**
+     * Constructs a LoadSimulation from command line options.
+     *
+     * @param args options of the form --name=value
+     * @throws IllegalArgumentException if an option is unknown, malformed or out of range
+     */
+    public LoadSimulation(String[] args) {
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(2, eq)) {
+                case "seed": seed = Long.parseLong(value); break;
+                case "hotels": hotelCount = Integer.parseInt(value); break;
+                case "rooms": roomsPerHotel = Integer.parseInt(value); break;
+                case "threads": threads = Integer.parseInt(value); break;
+                case "operations": operations = Integer.parseInt(value); break;
+                case "cancel-ratio": cancelRatio = Double.parseDouble(value); break;
+                case "horizon": horizonDays = Integer.parseInt(value); break;
+                case "max-stay": maxStay = Integer.parseInt(value); break;
+                case "dates": peakDates = value.equalsIgnoreCase("peak"); break;
+                case "consumers": consumers = Integer.parseInt(value); break;
+                case "event-capacity": eventCapacity = Integer.parseInt(value); break;
+                case "metrics": metrics = Boolean.parseBoolean(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        requirePositive("hotels", hotelCount);
+        requirePositive("rooms", roomsPerHotel);
+        requirePositive("threads", threads);
+        requirePositive("operations", operations);
+        requirePositive("horizon", horizonDays);
+        requirePositive("max-stay", maxStay);
+        if (consumers < 0) {
+            throw new IllegalArgumentException("--consumers must not be negative: " + consumers);
+        }
+        if (!(cancelRatio >= 0 && cancelRatio <= 1)) {
+            throw new IllegalArgumentException("--cancel-ratio must be between 0 and 1: " + cancelRatio);
+        }
+        if (LocalDate.now().plusDays((long) horizonDays + maxStay).isAfter(Hotel.LATEST_DATE)) {
+            throw new IllegalArgumentException("--horizon and --max-stay reach past " + Hotel.LATEST_DATE);
+        }
+    }
+
+    /**
+     * Throws IllegalArgumentException if a count option is not positive.
+     *
+     * @param option the name of the option
+     * @param value  the value of the option
+     */
+    private static void requirePositive(String option, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("--" + option + " must be positive: " + value);
+        }
+    }
+
+    /**
+     * Builds the hotels, runs the workers and prints the report.
+     *
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public void run() throws InterruptedException {
+        List<Hotel> hotels = createHotels();
+        BookingEventBus events = null;
+        EventCounter[] counters = new EventCounter[consumers];
+        if (consumers > 0) {
+            events = new BookingEventBus(eventCapacity);
+            for (int i = 0; i < consumers; i++) {
+                counters[i] = new EventCounter();
+                events.subscribe("counter-" + i, counters[i]);
+            }
+            for (Hotel hotel : hotels) {
+                hotel.setEventBus(events);
+            }
+        }
+        LocalDate start = LocalDate.now();
+        Worker[] workers = new Worker[threads];
+        Thread[] workerThreads = new Thread[threads];
+        CountDownLatch ready = new CountDownLatch(1);
+
+        for (int t = 0; t < threads; t++) {
+            int share = operations / threads + (t < operations % threads ? 1 : 0);
+            workers[t] = new Worker(t, share, hotels, start, ready);
+            workerThreads[t] = new Thread(workers[t], "load-worker-" + t);
+            workerThreads[t].start();
+        }
+
+        Metrics.resetAll();
+        long began = System.nanoTime();
+        ready.countDown();
+        for (Thread thread : workerThreads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - began;
+
+        printReport(workers, elapsed);
+        if (events != null) {
+            events.close();
+            System.out.println("Events published: " + events.getPublishedCount());
+            for (int i = 0; i < consumers; i++) {
+                System.out.println("Consumer " + i + ": " + counters[i].handled + " handled in "
+                        + counters[i].batches + " batches, " + counters[i].missed + " missed");
+            }
+        }
+        if (metrics) {
+            System.out.print(Metrics.report());
+        }
+    }
+
+    /**
+     * Creates the hotels under test, mixing standard and deluxe rooms.
+     *
+     * @return the generated hotels
+     */
+    private List<Hotel> createHotels() {
+        List<Hotel> hotels = new ArrayList<>(hotelCount);
+        for (int h = 1; h <= hotelCount; h++) {
+            Hotel hotel = new Hotel("Hotel " + h, 1299.00);
+            for (int r = 1; r <= roomsPerHotel; r++) {
+                String roomName = "Room " + r;
+                hotel.addRoom(r % 5 == 0 ? new DeluxeRoom(roomName, 1299.00 * 1.2) : new StandardRoom(roomName, 1299.00));
+            }
+            hotels.add(hotel);
+        }
+        return hotels;
+    }
+
+    /**
+     * Prints throughput, conflict rate and latency percentiles for the completed run.
+     *
+     * @param workers the finished workers
+     * @param elapsed the wall-clock duration of the run in nanoseconds
+     */
+    private void printReport(Worker[] workers, long elapsed) {
+        int bookings = 0;
+        int booked = 0;
+        int cancels = 0;
+        for (Worker worker : workers) {
+            bookings += worker.bookingCount;
+            booked += worker.booked;
+            cancels += worker.cancelCount;
+        }
+        long[] bookLatencies = new long[bookings];
+        long[] cancelLatencies = new long[cancels];
+        int b = 0;
+        int c = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.bookLatencies, 0, bookLatencies, b, worker.bookingCount);
+            System.arraycopy(worker.cancelLatencies, 0, cancelLatencies, c, worker.cancelCount);
+            b += worker.bookingCount;
+            c += worker.cancelCount;
+        }
+        Arrays.sort(bookLatencies);
+        Arrays.sort(cancelLatencies);
+
+        double seconds = elapsed / 1e9;
+        System.out.println("Simulation: " + hotelCount + " hotels x " + roomsPerHotel + " rooms, "
+                + threads + " threads, seed " + seed + ", " + (peakDates ? "peak" : "uniform") + " dates");
+        System.out.printf("Operations: %d in %.3f s (%.0f ops/s)%n", bookings + cancels, seconds, (bookings + cancels) / seconds);
+        System.out.printf("Bookings: %d attempted, %d booked, conflict rate %.2f%%%n",
+                bookings, booked, bookings == 0 ? 0.0 : 100.0 * (bookings - booked) / bookings);
+        System.out.println("Cancellations: " + cancels);
+        System.out.printf("Booking latency: p50 %.1f us, p99 %.1f us%n", percentile(bookLatencies, 0.50), percentile(bookLatencies, 0.99));
+        System.out.printf("Cancel latency: p50 %.1f us, p99 %.1f us%n", percentile(cancelLatencies, 0.50), percentile(cancelLatencies, 0.99));
+    }
+
+    /**
+     * Returns a percentile of sorted nanosecond latencies, in microseconds.
+     */
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1000.0;
+    }
+
+    /**
+     * Counts the events delivered to a consumer and the batches they arrived in.
+     * The counts are read after the bus is closed, which joins the consumer thread.
+     */
+    private static class EventCounter implements BookingEventHandler {
+        private long handled;
+        private long batches;
+        private long missed;
+
+        @Override
+        public void onEvent(BookingEvent event, boolean endOfBatch) {
+            handled++;
+            if (endOfBatch) {
+                batches++;
+            }
+        }
+
+        @Override
+        public void onOverrun(long count) {
+            missed += count;
+        }
+    }
+
+    /**
+     * A worker thread that issues a fixed number of bookings and cancellations
+     * of its own reservations, timing each one.
+     */
+    private class Worker implements Runnable {
+        private final int id;
+        private final int operationCount;
+        private final List<Hotel> hotels;
+        private final LocalDate start;
+        private final CountDownLatch ready;
+        private final Random random;
+        private final long[] bookLatencies;
+        private final long[] cancelLatencies;
+        private final ArrayList<Hotel> heldHotels = new ArrayList<>();
+        private final ArrayList<Long> heldReservations = new ArrayList<>();
+        private int bookingCount;
+        private int cancelCount;
+        private int booked;
+
+        Worker(int id, int operationCount, List<Hotel> hotels, LocalDate start, CountDownLatch ready) {
+            this.id = id;
+            this.operationCount = operationCount;
+            this.hotels = hotels;
+            this.start = start;
+            this.ready = ready;
+            this.random = new Random(seed + id);
+            this.bookLatencies = new long[operationCount];
+            this.cancelLatencies = new long[operationCount];
+        }
+
+        @Override
+        public void run() {
+            try {
+                ready.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (int op = 0; op < operationCount; op++) {
+                if (!heldReservations.isEmpty() && random.nextDouble() < cancelRatio) {
+                    cancel();
+                } else {
+                    book(op);
+                }
+            }
+        }
+
+        /**
+         * Books a random room of a random hotel for a random stay.
+         */
+        private void book(int op) {
+            Hotel hotel = hotels.get(random.nextInt(hotels.size()));
+            String roomName = "Room " + (1 + random.nextInt(roomsPerHotel));
+            LocalDate checkIn = start.plusDays(nextLeadTime());
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(maxStay));
+            String guestName = "Guest " + id + "-" + op;
+
+            long began = System.nanoTime();
+            Room room = hotel.getRoom(roomName);
+            Reservation reservation = hotel.book(guestName, room, checkIn, checkOut);
+            bookLatencies[bookingCount++] = System.nanoTime() - began;
+
+            if (reservation != null) {
+                booked++;
+                heldHotels.add(hotel);
+                heldReservations.add(reservation.getId());
+            }
+        }
+
+        /**
+         * Cancels one of this worker's own reservations, chosen at random.
+         */
+        private void cancel() {
+            int pick = random.nextInt(heldReservations.size());
+            int last = heldReservations.size() - 1;
+            Hotel hotel = heldHotels.get(pick);
+            long id = heldReservations.get(pick);
+            heldHotels.set(pick, heldHotels.get(last));
+            heldReservations.set(pick, heldReservations.get(last));
+            heldHotels.remove(last);
+            heldReservations.remove(last);
+
+            long began = System.nanoTime();
+            hotel.cancelReservation(id);
+            cancelLatencies[cancelCount++] = System.nanoTime() - began;
+        }
+
+        /**
+         * Picks how many days ahead a stay begins. Uniform dates spread over the whole horizon;
+         * peak dates follow an exponential lead time so most stays crowd into the first weeks.
+         */
+        private int nextLeadTime() {
+            if (!peakDates) {
+                return random.nextInt(horizonDays);
+            }
+            double lead = -Math.log(1.0 - random.nextDouble()) * horizonDays / 8.0;
+            return (int) Math.min(lead, horizonDays - 1);
+        }
+    }
+}
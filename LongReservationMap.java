@@ -0,0 +1,171 @@
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Maps reservation ids to reservations with open addressing and linear probing.
+ * Keys are kept in a primitive long array so lookups never box, and removal shifts
+ * the following entries of the probe run back instead of leaving tombstones.
+ * Id 0 marks an empty slot, so it cannot be used as a key. The caller synchronizes access.
+ */
+public class LongReservationMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys = new long[MIN_CAPACITY];
+    private Reservation[] values = new Reservation[MIN_CAPACITY];
+    private int size;
+
+    /**
+     * Gets the reservation with the given id.
+     *
+     * @param id the reservation id
+     * @return the reservation, or null if there is none with the id
+     */
+    public Reservation get(long id) {
+        int mask = keys.length - 1;
+        for (int i = indexFor(id, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == id) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds or replaces the reservation with the given id.
+     *
+     * @param id          the reservation id, not 0
+     * @param reservation the reservation
+     */
+    public void put(long id, Reservation reservation) {
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = indexFor(id, mask);
+        while (keys[i] != 0 && keys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            keys[i] = id;
+            size++;
+        }
+        values[i] = reservation;
+    }
+
+    /**
+     * Removes the reservation with the given id.
+     *
+     * @param id the reservation id
+     * @return the removed reservation, or null if there was none with the id
+     */
+    public Reservation remove(long id) {
+        int mask = keys.length - 1;
+        int i = indexFor(id, mask);
+        while (keys[i] != id) {
+            if (keys[i] == 0) {
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+        Reservation removed = values[i];
+        size--;
+
+        // Move later entries of the probe run into the gap if their home slot allows it
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = indexFor(keys[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+        return removed;
+    }
+
+    /**
+     * Gets the number of reservations in the map.
+     *
+     * @return the number of reservations
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a read-only view of the reservations in the map, in no particular order.
+     *
+     * @return the reservations
+     */
+    public Collection<Reservation> values() {
+        return new AbstractCollection<Reservation>() {
+            @Override
+            public Iterator<Reservation> iterator() {
+                return new Iterator<Reservation>() {
+                    private final Reservation[] table = values;
+                    private int next = advance(0);
+
+                    private int advance(int from) {
+                        while (from < table.length && table[from] == null) {
+                            from++;
+                        }
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < table.length;
+                    }
+
+                    @Override
+                    public Reservation next() {
+                        if (next >= table.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Reservation reservation = table[next];
+                        next = advance(next + 1);
+                        return reservation;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Rehashes every entry into tables of the given capacity, a power of two.
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Reservation[] oldValues = values;
+        keys = new long[capacity];
+        values = new Reservation[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = indexFor(oldKeys[j], mask);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Returns the home slot of an id, mixing its bits so that sequential ids spread out.
+     */
+    private static int indexFor(long id, int mask) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -1,31 +1,244 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main class for the Hotel Reservation System.
  */
 public class Main {
-    private static ArrayList<Hotel> hotels = new ArrayList<>();
+    private static final String JOURNAL_FILE = "hotels.journal";
+    private static final String SNAPSHOT_FILE = "hotels.snapshot";
+    private static final long SNAPSHOT_INTERVAL = 16L << 20;
+    private static final long SNAPSHOT_CHECK_SECONDS = 10;
+    private static final int EVENT_CAPACITY = 1 << 16;
+
+    private static HotelRegistry registry = new HotelRegistry();
+    private static Path eventLogFile;
+    private static BookingEventBus events;
+    private static EventLog eventLog;
     private static Scanner scanner = new Scanner(System.in);
+    private static Journal journal;
+    private static long snapshotPosition;
 
     /**
      * Main method to run the Hotel Reservation System.
+     * Passing --simulate runs the headless load simulation instead of the menu,
+     * passing --http=PORT serves the hotels over HTTP on that local port,
+     * and passing --script=FILE runs the commands in FILE, or on standard input for --script=-.
+     * Any of these but --simulate may be preceded by --event-log=FILE to append every change
+     * to the hotels to FILE.
      * @param args Command line arguments.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].startsWith("--event-log=")) {
+            eventLogFile = Paths.get(args[0].substring("--event-log=".length()));
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        if (args.length > 0 && args[0].equals("--simulate")) {
+            runSimulation(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].startsWith("--http=")) {
+            runServer(args[0].substring("--http=".length()));
+            return;
+        }
+        if (args.length > 0 && args[0].startsWith("--script=")) {
+            runScript(args[0].substring("--script=".length()));
+            return;
+        }
+
+        openJournal();
         while (true) {
             printMenu();
             switch (getIntInput("Choose an option: ")) {
-                case 1: new CreateHotel(hotels, scanner).execute(); break;
-                case 2: new ViewHotelInfo(hotels, scanner).execute(); break;
-                case 3: new ManageHotel(hotels, scanner).execute(); break;
-                case 4: new SimulateBookings(hotels).execute(); break;
-                case 5: exit(); break;
+                case 1: new CreateHotel(registry, scanner, journal).execute(); break;
+                case 2: new ViewHotelInfo(registry, scanner).execute(); break;
+                case 3: new ManageHotel(registry, scanner).execute(); break;
+                case 4: new SimulateBookings(registry).execute(); break;
+                case 5: new SearchHotels(registry, scanner).execute(); break;
+                case 6: exit(); break;
                 default: System.out.println("Invalid choice. Please try again.");
             }
+            saveSnapshotIfDue();
+        }
+    }
+
+    /**
+     * Restores the hotels from the latest snapshot and the journal records written after it,
+     * then opens the journal for new changes and, if an event log was requested, attaches an event bus
+     * read by it, so that the restored hotels and every hotel created later publish their changes
+     * but replayed changes are not published.
+     * If the snapshot cannot be loaded, the whole journal is replayed instead.
+     * If the journal cannot be opened, the system runs without saving changes.
+     */
+    private static void openJournal() {
+        ArrayList<Hotel> hotels = new ArrayList<>();
+        Path snapshotPath = Paths.get(SNAPSHOT_FILE);
+        if (Files.exists(snapshotPath)) {
+            try {
+                snapshotPosition = Snapshot.load(snapshotPath, hotels);
+            } catch (IOException e) {
+                System.out.println("Could not load the snapshot, replaying the full journal. " + e.getMessage());
+                hotels.clear();
+                snapshotPosition = 0;
+            }
+        }
+        try {
+            journal = Journal.open(Paths.get(JOURNAL_FILE), hotels, snapshotPosition);
+        } catch (IOException e) {
+            System.out.println("Could not open the journal, changes will not be saved. " + e.getMessage());
+        }
+        for (Hotel hotel : hotels) {
+            registry.add(hotel);
+        }
+        openEventLog();
+    }
+
+    /**
+     * Opens the event log requested with --event-log and attaches an event bus feeding it
+     * to every hotel. Without an event log no bus is attached, so the hotels publish nothing.
+     */
+    private static void openEventLog() {
+        if (eventLogFile == null) {
+            return;
+        }
+        try {
+            eventLog = new EventLog(eventLogFile);
+        } catch (IOException e) {
+            System.out.println("Could not open the event log, changes will not be logged. " + e.getMessage());
+            return;
+        }
+        events = new BookingEventBus(EVENT_CAPACITY);
+        events.subscribe("log", eventLog);
+        registry.setEventBus(events);
+    }
+
+    /**
+     * Detaches the event bus, waits for the event log to handle every event published so far and closes it.
+     */
+    private static void closeEventLog() {
+        if (events == null) {
+            return;
+        }
+        registry.setEventBus(null);
+        events.close();
+        try {
+            eventLog.close();
+            if (eventLog.getMissed() > 0) {
+                System.out.println("The event log missed " + eventLog.getMissed() + " events.");
+            }
+        } catch (IOException e) {
+            System.out.println("Could not write the event log. " + e.getMessage());
+        }
+        events = null;
+    }
+
+    /**
+     * Saves a snapshot once SNAPSHOT_INTERVAL bytes have been journaled since the last one,
+     * so that the journal replayed at startup stays short however long the system runs.
+     */
+    private static synchronized void saveSnapshotIfDue() {
+        if (journal != null && journal.getPosition() - snapshotPosition >= SNAPSHOT_INTERVAL) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * Saves a snapshot of all hotels covering everything journaled so far,
+     * so that the next startup only replays the journal from this point.
+     */
+    private static synchronized void saveSnapshot() {
+        try {
+            snapshotPosition = Snapshot.write(Paths.get(SNAPSHOT_FILE), registry.getHotels(), journal);
+        } catch (IOException e) {
+            System.out.println("Could not save the snapshot. " + e.getMessage());
         }
     }
 
+    /**
+     * Runs the headless load simulation with the given options.
+     * @param options Simulation options of the form --name=value.
+     */
+    private static void runSimulation(String[] options) {
+        try {
+            new LoadSimulation(options).run();
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid simulation option. " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Restores the hotels and serves them over HTTP until the process is stopped.
+     * While serving, a snapshot is saved whenever SNAPSHOT_INTERVAL bytes have been journaled,
+     * checked every SNAPSHOT_CHECK_SECONDS, and a final one is saved and the journal closed
+     * when the process shuts down.
+     * @param port The local port to listen on.
+     */
+    private static void runServer(String port) {
+        openJournal();
+        BookingHttpServer server;
+        try {
+            server = new BookingHttpServer(registry, journal, Integer.parseInt(port));
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid port: " + port);
+            return;
+        } catch (IOException e) {
+            System.out.println("Could not start the HTTP server. " + e.getMessage());
+            return;
+        }
+        ScheduledExecutorService snapshots = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshots.scheduleWithFixedDelay(Main::saveSnapshotIfDue, SNAPSHOT_CHECK_SECONDS, SNAPSHOT_CHECK_SECONDS,
+                TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            snapshots.shutdown();
+            closeJournal();
+        }));
+        server.start();
+        System.out.println("Serving the hotels on http://localhost:" + server.getPort() + "/");
+    }
+
+    /**
+     * Restores the hotels, runs a command script against them, and saves a snapshot,
+     * even if the script stops early.
+     * The process exits with status 1 if any command failed.
+     * @param file The script file, or - to read the script from standard input.
+     */
+    private static void runScript(String file) {
+        openJournal();
+        int errors;
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try (BufferedReader in = file.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            errors = new CommandScript(registry, journal, out).run(in);
+        } catch (IOException e) {
+            System.out.println("Could not run the script. " + e.getMessage());
+            errors = 1;
+        } finally {
+            closeJournal();
+        }
+        System.exit(errors == 0 ? 0 : 1);
+    }
+
     /**
      * Prints the menu options for the Hotel Reservation System.
      */
@@ -35,7 +248,8 @@ public class Main {
         System.out.println("2. View hotel information");
         System.out.println("3. Manage a hotel");
         System.out.println("4. Simulate bookings");
-        System.out.println("5. Exit");
+        System.out.println("5. Search all hotels");
+        System.out.println("6. Exit");
     }
 
     /**
@@ -59,6 +273,24 @@ public class Main {
      */
     private static void exit() {
         System.out.println("Exiting the system...");
+        closeJournal();
         System.exit(0);
     }
+
+    /**
+     * Saves a final snapshot and closes the journal, if there is one, then closes the event log.
+     * No further snapshots are saved once the journal is closed.
+     */
+    private static synchronized void closeJournal() {
+        if (journal != null) {
+            saveSnapshot();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("Could not close the journal. " + e.getMessage());
+            }
+            journal = null;
+        }
+        closeEventLog();
+    }
 }
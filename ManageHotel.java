@@ -1,6 +1,6 @@
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -8,17 +8,17 @@ import java.util.Scanner;
  * including adding/removing rooms, updating prices, and handling reservations.
  */
 public class ManageHotel {
-    private ArrayList<Hotel> hotels;
+    private HotelRegistry registry;
     private Scanner scanner;
 
     /**
      * Constructor for ManageHotel.
      *
-     * @param hotels  List of hotels to manage.
-     * @param scanner Scanner for user input.
+     * @param registry Registry of hotels to manage.
+     * @param scanner  Scanner for user input.
      */
-    public ManageHotel(ArrayList<Hotel> hotels, Scanner scanner) {
-        this.hotels = hotels;
+    public ManageHotel(HotelRegistry registry, Scanner scanner) {
+        this.registry = registry;
         this.scanner = scanner;
     }
 
@@ -48,9 +48,12 @@ public class ManageHotel {
                     updateRoomPrice(hotel);
                     break;
                 case 6:
-                    simulateBookings(hotel);
+                    modifyRates(hotel);
                     break;
                 case 7:
+                    simulateBookings(hotel);
+                    break;
+                case 8:
                     return;
                 default:
                     System.out.println("Invalid choice. Please try again.");
@@ -70,8 +73,9 @@ public class ManageHotel {
         System.out.println("3. Rename the hotel");
         System.out.println("4. Update base price");
         System.out.println("5. Update price of a room");
-        System.out.println("6. Simulate bookings and cancellations");
-        System.out.println("7. Back to main menu");
+        System.out.println("6. Modify rates for a date range");
+        System.out.println("7. Simulate bookings and cancellations");
+        System.out.println("8. Back to main menu");
     }
 
     /**
@@ -80,6 +84,7 @@ public class ManageHotel {
      * @return The selected hotel or null if no hotels are available.
      */
     private Hotel selectHotel() {
+        List<Hotel> hotels = registry.getHotels();
         if (hotels.isEmpty()) {
             System.out.println("No hotels available.");
             return null;
@@ -111,6 +116,10 @@ public class ManageHotel {
         double roomPrice = getDoubleInput("Enter price for room: ");
         scanner.nextLine();
 
+        if (!Hotel.isValidName(roomName)) {
+            System.out.println("Room names must be at most " + Hotel.MAX_NAME_LENGTH + " characters long.");
+            return;
+        }
         Room room = null;
         if (roomType.equalsIgnoreCase("Standard")) {
             room = new StandardRoom(roomName, roomPrice);
@@ -121,8 +130,11 @@ public class ManageHotel {
             return;
         }
 
-        hotel.addRoom(room);
-        System.out.println("Room added successfully.");
+        if (hotel.addRoom(room)) {
+            System.out.println("Room added successfully.");
+        } else {
+            System.out.println("Room name already exists. Please enter a different name.");
+        }
     }
 
     /**
@@ -134,8 +146,9 @@ public class ManageHotel {
         System.out.print("Enter room name to remove: ");
         String roomName = scanner.nextLine();
 
-        if (hotel.getRoom(roomName) != null && hotel.hasNoReservations()) {
-            hotel.removeRoom(roomName);
+        if (hotel.getRoom(roomName) == null) {
+            System.out.println("Room not found.");
+        } else if (hotel.removeRoom(roomName)) {
             System.out.println("Room removed successfully.");
         } else {
             System.out.println("Cannot remove room with active reservations.");
@@ -151,29 +164,15 @@ public class ManageHotel {
         System.out.print("Enter new hotel name: ");
         String newHotelName = scanner.nextLine();
 
-        if (isUniqueHotelName(newHotelName)) {
-            hotel.setName(newHotelName);
+        if (!Hotel.isValidName(newHotelName)) {
+            System.out.println("Hotel names must be at most " + Hotel.MAX_NAME_LENGTH + " characters long.");
+        } else if (registry.rename(hotel, newHotelName)) {
             System.out.println("Hotel renamed successfully.");
         } else {
             System.out.println("Hotel name already exists. Please enter a different name.");
         }
     }
 
-    /**
-     * Checks if the hotel name is unique among existing hotels.
-     *
-     * @param name The name to check for uniqueness.
-     * @return true if the name is unique, false otherwise.
-     */
-    private boolean isUniqueHotelName(String name) {
-        for (Hotel h : hotels) {
-            if (h.getName().equalsIgnoreCase(name)) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     /**
      * Updates the base price of the selected hotel.
      *
@@ -200,21 +199,50 @@ public class ManageHotel {
         double newPrice = getDoubleInput("Enter new price for room: ");
 
         Room room = hotel.getRoom(roomName);
-        if (room != null && newPrice >= 100.0 && hotel.getReservations().stream().noneMatch(reservation -> reservation.getRoom().getName().equals(roomName))) {
-            room.setPricePerNight(newPrice);
+        if (room != null && newPrice >= 100.0 && hotel.noActiveReservations(room)) {
+            hotel.updateRoomPrice(room, newPrice);
             System.out.println("Room price updated successfully.");
         } else {
             System.out.println("Cannot update price with active reservations or price is below 100.");
         }
     }
 
+    /**
+     * Modifies the nightly rates of the selected hotel for a range of dates.
+     * The rate is given as a percentage of each room's price per night.
+     *
+     * @param hotel The hotel whose rates will be modified.
+     */
+    private void modifyRates(Hotel hotel) {
+        LocalDate from = getDateInput("Enter first night of the range (YYYY-MM-DD): ");
+        LocalDate to = getDateInput("Enter last night of the range (YYYY-MM-DD): ");
+        scanner.nextLine();
+        if (to.isBefore(from)) {
+            System.out.println("The last night must not be before the first night.");
+            return;
+        }
+        if (!Hotel.isWithinWindow(from, to.plusDays(1))) {
+            System.out.println("Dates must be between " + Hotel.EARLIEST_DATE + " and " + Hotel.LATEST_DATE + ".");
+            return;
+        }
+
+        double percentage = getDoubleInput("Enter rate as a percentage of the room price (50-150): ");
+        if (percentage < 50 || percentage > 150) {
+            System.out.println("Rate must be between 50% and 150%.");
+            return;
+        }
+
+        hotel.updateRates(from, to.plusDays(1), percentage / 100);
+        System.out.println("Rates updated successfully. Existing reservations keep their price.");
+    }
+
     /**
      * Simulates bookings and cancellations for the selected hotel using SimulateBookings class.
      *
      * @param hotel The hotel for which to simulate bookings and cancellations.
      */
     private void simulateBookings(Hotel hotel) {
-        SimulateBookings simulateBookings = new SimulateBookings(hotels);
+        SimulateBookings simulateBookings = new SimulateBookings(registry);
         simulateBookings.execute();
     }
 
@@ -235,6 +263,23 @@ public class ManageHotel {
         return value;
     }
 
+    /**
+     * Prompts the user for a date input.
+     *
+     * @param prompt The prompt message for the input.
+     * @return The LocalDate value input by the user.
+     */
+    private LocalDate getDateInput(String prompt) {
+        System.out.print(prompt);
+        while (true) {
+            try {
+                return LocalDate.parse(scanner.next(), DateTimeFormatter.ISO_LOCAL_DATE);
+            } catch (Exception e) {
+                System.out.print("Invalid date format. " + prompt);
+            }
+        }
+    }
+
     /**
      * Prompts the user for a double input.
      *
@@ -0,0 +1,106 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Holds the statistics of every instrumented operation and publishes them as JMX MBeans
+ * under the "hotel" domain: one OperationStats bean per operation, named
+ * hotel:type=OperationStats,name=..., and a hotel:type=Metrics bean that dumps or resets them all.
+ * They can be read with jconsole or any other JMX client without attaching a profiler.
+ */
+public final class Metrics implements MetricsMBean {
+    private static final Map<String, OperationStats> OPERATIONS = new ConcurrentSkipListMap<>();
+
+    /** Bookings of a given room or of any room of a type. */
+    public static final OperationStats BOOK = register("book");
+    /** Batches of booking requests, timed per batch. */
+    public static final OperationStats BOOK_BATCH = register("book.batch");
+    /** Cancellations by reservation id or by guest. */
+    public static final OperationStats CANCEL = register("cancel");
+    /** Lookups of rooms, reservations and free rooms. */
+    public static final OperationStats LOOKUP = register("lookup");
+    /** Earnings and occupancy reports. */
+    public static final OperationStats REPORT = register("report");
+    /** Searches across every hotel. */
+    public static final OperationStats SEARCH = register("search");
+    /** Claims of a room's nights on its calendar, including waiting for the room's lock. */
+    public static final OperationStats ROOM_BOOK = register("room.book");
+    /** Matches of nights freed by cancellations against the waitlist. */
+    public static final OperationStats WAITLIST = register("waitlist");
+    /** Waits for the journal to make a change durable. */
+    public static final OperationStats JOURNAL_COMMIT = register("journal.commit");
+
+    static {
+        registerBean(new Metrics(), "hotel:type=Metrics");
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Gets the statistics of an operation, creating and publishing them on first use.
+     *
+     * @param name the name of the operation
+     * @return the statistics of the operation
+     */
+    public static OperationStats register(String name) {
+        return OPERATIONS.computeIfAbsent(name, key -> {
+            OperationStats stats = new OperationStats(key);
+            registerBean(stats, "hotel:type=OperationStats,name=" + ObjectName.quote(key));
+            return stats;
+        });
+    }
+
+    /**
+     * Describes the statistics of every operation that has been recorded at least once.
+     *
+     * @return the statistics as text, one operation per line
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        for (OperationStats stats : OPERATIONS.values()) {
+            if (stats.getCount() > 0) {
+                report.append(stats.dump()).append(System.lineSeparator());
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Clears the statistics of every operation.
+     */
+    public static void resetAll() {
+        for (OperationStats stats : OPERATIONS.values()) {
+            stats.reset();
+        }
+    }
+
+    @Override
+    public String dump() {
+        return report();
+    }
+
+    @Override
+    public void reset() {
+        resetAll();
+    }
+
+    /**
+     * Publishes an MBean on the platform MBean server. Metrics still work without JMX,
+     * so a bean that cannot be registered is only reported.
+     */
+    private static void registerBean(Object bean, String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(bean, objectName);
+            }
+        } catch (JMException | SecurityException e) {
+            System.out.println("Could not publish " + name + " over JMX: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * The JMX management interface for the statistics of every instrumented operation.
+ */
+public interface MetricsMBean {
+    /**
+     * Describes the statistics of every operation, one per line.
+     *
+     * @return the statistics as text
+     */
+    String dump();
+
+    /**
+     * Clears the statistics of every operation.
+     */
+    void reset();
+}
@@ -0,0 +1,107 @@
+/**
+ * Counts how many rooms of a hotel are booked on each night, keyed by epoch day.
+ * The per-night counts answer point queries directly, and a Fenwick tree over the
+ * same counts answers booked room-nights between two dates in logarithmic time.
+ * The index grows in either direction as stays fall outside its current span.
+ */
+public class OccupancyIndex {
+    private static final int MIN_DAYS = 512;
+
+    private long origin;
+    private int[] counts;
+    private long[] tree;
+
+    /**
+     * Constructs an empty index with no booked nights.
+     */
+    public OccupancyIndex() {
+        this.counts = new int[0];
+        this.tree = new long[1];
+    }
+
+    /**
+     * Adds a change in the number of booked rooms to every night in the range [from, to).
+     *
+     * @param from  the epoch day of the first night
+     * @param to    the epoch day after the last night
+     * @param delta 1 when a room is booked for the nights, -1 when it is released
+     */
+    public void add(long from, long to, int delta) {
+        if (from >= to) {
+            return;
+        }
+        ensureCovers(from, to);
+        for (long day = from; day < to; day++) {
+            int index = (int) (day - origin);
+            counts[index] += delta;
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of rooms booked on the night of the given epoch day.
+     *
+     * @param day the epoch day of the night
+     * @return the number of booked rooms
+     */
+    public int getBooked(long day) {
+        long index = day - origin;
+        return index < 0 || index >= counts.length ? 0 : counts[(int) index];
+    }
+
+    /**
+     * Gets the total number of booked room-nights in the range [from, to).
+     *
+     * @param from the epoch day of the first night
+     * @param to   the epoch day after the last night
+     * @return the number of booked room-nights
+     */
+    public long getBookedNights(long from, long to) {
+        if (from >= to) {
+            return 0;
+        }
+        return prefixSum(to - origin) - prefixSum(from - origin);
+    }
+
+    /**
+     * Sums the counts of the first n nights covered by the index.
+     */
+    private long prefixSum(long n) {
+        int i = (int) Math.max(0, Math.min(n, counts.length));
+        long sum = 0;
+        for (; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Grows the index so that the range [from, to) can be addressed, rebuilding the tree.
+     */
+    private void ensureCovers(long from, long to) {
+        if (counts.length > 0 && from >= origin && to - origin <= counts.length) {
+            return;
+        }
+        long newOrigin = counts.length == 0 ? from : Math.min(origin, from < origin ? from - counts.length / 2 : from);
+        long end = counts.length == 0 ? to : Math.max(origin + counts.length, to);
+        int size = (int) Math.max(MIN_DAYS, Math.max(end - newOrigin, counts.length * 2L));
+
+        int[] grown = new int[size];
+        if (counts.length > 0) {
+            System.arraycopy(counts, 0, grown, (int) (origin - newOrigin), counts.length);
+        }
+        origin = newOrigin;
+        counts = grown;
+
+        tree = new long[size + 1];
+        for (int i = 1; i <= size; i++) {
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
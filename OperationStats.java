@@ -0,0 +1,107 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and times one kind of operation, such as bookings or lookups.
+ * Callers take System.nanoTime() before the operation and pass it to record afterwards.
+ */
+public class OperationStats implements OperationStatsMBean {
+    private final String name;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder failures = new LongAdder();
+    private volatile long since = System.nanoTime();
+
+    /**
+     * Constructs the statistics of an operation.
+     *
+     * @param name the name of the operation
+     */
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the operation.
+     *
+     * @return the operation name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records a successful operation.
+     *
+     * @param started the System.nanoTime() taken when the operation started
+     */
+    public void record(long started) {
+        latencies.record(System.nanoTime() - started);
+    }
+
+    /**
+     * Records an operation and whether it succeeded.
+     *
+     * @param started   the System.nanoTime() taken when the operation started
+     * @param succeeded false if the operation was rejected or found nothing
+     */
+    public void record(long started, boolean succeeded) {
+        latencies.record(System.nanoTime() - started);
+        if (!succeeded) {
+            failures.increment();
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return latencies.getCount();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - since) / 1e9;
+        return seconds <= 0 ? 0 : latencies.getCount() / seconds;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latencies.getMean() / 1000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latencies.getValueAtPercentile(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latencies.getValueAtPercentile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latencies.getValueAtPercentile(0.999) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latencies.getMax() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        latencies.reset();
+        failures.reset();
+        since = System.nanoTime();
+    }
+
+    @Override
+    public String dump() {
+        return String.format("%-16s count %d, failures %d, %.0f/s, mean %.1f us, p50 %.1f us, p99 %.1f us, "
+                        + "p99.9 %.1f us, max %.1f us", name, getCount(), getFailures(), getThroughput(),
+                getMeanMicros(), getP50Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * The JMX management interface of the statistics of one kind of operation.
+ * Latencies are reported in microseconds.
+ */
+public interface OperationStatsMBean {
+    /**
+     * Gets the number of operations since the last reset.
+     *
+     * @return the number of operations
+     */
+    long getCount();
+
+    /**
+     * Gets the number of operations that did not succeed, such as bookings of a taken room.
+     *
+     * @return the number of unsuccessful operations
+     */
+    long getFailures();
+
+    /**
+     * Gets the average number of operations per second since the last reset.
+     *
+     * @return the throughput
+     */
+    double getThroughput();
+
+    /**
+     * Gets the mean latency.
+     *
+     * @return the mean in microseconds
+     */
+    double getMeanMicros();
+
+    /**
+     * Gets the median latency.
+     *
+     * @return the 50th percentile in microseconds
+     */
+    double getP50Micros();
+
+    /**
+     * Gets the 99th percentile latency.
+     *
+     * @return the 99th percentile in microseconds
+     */
+    double getP99Micros();
+
+    /**
+     * Gets the 99.9th percentile latency.
+     *
+     * @return the 99.9th percentile in microseconds
+     */
+    double getP999Micros();
+
+    /**
+     * Gets the largest latency.
+     *
+     * @return the maximum in microseconds
+     */
+    double getMaxMicros();
+
+    /**
+     * Clears the counters and the histogram.
+     */
+    void reset();
+
+    /**
+     * Describes the statistics on one line.
+     *
+     * @return the statistics as text
+     */
+    String dump();
+}
@@ -0,0 +1,373 @@
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable map from reservation ids to reservations, stored as a hash array mapped trie.
+ * Adding or removing a reservation copies only the nodes on the path to it and shares the rest
+ * with the original map, so both versions stay valid and cost O(log32 n) to derive.
+ * Each level of the trie consumes five bits of a mixed 64-bit hash of the id. The mixing is a
+ * bijection, so distinct ids never collide and the trie needs no collision nodes.
+ * Adding many reservations at once edits the nodes created during that call in place, since
+ * no other version can see them yet, and copies only the nodes it shares with this map.
+ */
+public class PersistentReservationMap {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentReservationMap EMPTY = new PersistentReservationMap(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    /**
+     * Constructs a map over a trie.
+     *
+     * @param root the root node, or null for an empty map
+     * @param size the number of reservations in the trie
+     */
+    private PersistentReservationMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Gets the empty map.
+     *
+     * @return the empty map
+     */
+    public static PersistentReservationMap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Gets the reservation with the given id.
+     *
+     * @param id the reservation id
+     * @return the reservation, or null if there is none with the id
+     */
+    public Reservation get(long id) {
+        return find(root, id);
+    }
+
+    /**
+     * Returns a map that also holds a reservation, keyed by its id, replacing any with the same id.
+     *
+     * @param reservation the reservation, which must already have its id
+     * @return the new map
+     */
+    public PersistentReservationMap plus(Reservation reservation) {
+        boolean replaced = get(reservation.getId()) != null;
+        return new PersistentReservationMap(insert(root, reservation, null), replaced ? size : size + 1);
+    }
+
+    /**
+     * Returns a map that also holds several reservations, keyed by their ids.
+     *
+     * @param added the reservations, which must already have their ids
+     * @return the new map
+     */
+    public PersistentReservationMap plusAll(Collection<Reservation> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+        Object owner = new Object();
+        Node node = root;
+        int count = size;
+        for (Reservation reservation : added) {
+            if (find(node, reservation.getId()) == null) {
+                count++;
+            }
+            node = insert(node, reservation, owner);
+        }
+        return new PersistentReservationMap(node, count);
+    }
+
+    /**
+     * Finds the reservation with the given id in a trie.
+     */
+    private static Reservation find(Node node, long id) {
+        long hash = hash(id);
+        for (int shift = 0; node != null; shift += BITS) {
+            int bit = 1 << fragment(hash, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[node.index(bit)];
+            if (slot instanceof Reservation) {
+                Reservation reservation = (Reservation) slot;
+                return reservation.getId() == id ? reservation : null;
+            }
+            node = (Node) slot;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a map without the reservation with the given id.
+     *
+     * @param id the reservation id
+     * @return the new map, or this map if it has no reservation with the id
+     */
+    public PersistentReservationMap minus(long id) {
+        if (root == null) {
+            return this;
+        }
+        Node node = remove(root, 0, hash(id), id);
+        if (node == root) {
+            return this;
+        }
+        return node == null ? EMPTY : new PersistentReservationMap(node, size - 1);
+    }
+
+    /**
+     * Gets the number of reservations in the map.
+     *
+     * @return the number of reservations
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a read-only view of the reservations in the map, in no particular order.
+     * The view never changes, so it can be iterated without any lock.
+     *
+     * @return the reservations
+     */
+    public Collection<Reservation> values() {
+        return new AbstractCollection<Reservation>() {
+            @Override
+            public Iterator<Reservation> iterator() {
+                return new TrieIterator(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Adds a reservation to a trie, or replaces the one with its id.
+     *
+     * @param root        the root node, or null for an empty trie
+     * @param reservation the reservation
+     * @param owner       the token of the call that may edit its own nodes in place, or null to copy every node
+     * @return the new root
+     */
+    private static Node insert(Node root, Reservation reservation, Object owner) {
+        long hash = hash(reservation.getId());
+        if (root == null) {
+            return new Node(1 << fragment(hash, 0), new Object[] {reservation}, owner);
+        }
+        return insert(root, 0, hash, reservation, owner);
+    }
+
+    /**
+     * Copies the path to a reservation's slot, adding the reservation or replacing one with its id.
+     * Nodes created under the same owner are changed in place instead of copied.
+     */
+    private static Node insert(Node node, int shift, long hash, Reservation reservation, Object owner) {
+        int bit = 1 << fragment(hash, shift);
+        int index = node.index(bit);
+        if ((node.bitmap & bit) == 0) {
+            Object[] slots = new Object[node.slots.length + 1];
+            System.arraycopy(node.slots, 0, slots, 0, index);
+            slots[index] = reservation;
+            System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+            return node.update(node.bitmap | bit, slots, owner);
+        }
+
+        Object slot = node.slots[index];
+        Object replacement;
+        if (slot instanceof Node) {
+            replacement = insert((Node) slot, shift + BITS, hash, reservation, owner);
+        } else if (((Reservation) slot).getId() == reservation.getId()) {
+            replacement = reservation;
+        } else {
+            Reservation existing = (Reservation) slot;
+            replacement = split(shift + BITS, hash(existing.getId()), existing, hash, reservation, owner);
+        }
+        if (replacement == slot) {
+            return node;
+        }
+        Object[] slots = node.isOwnedBy(owner) ? node.slots : node.slots.clone();
+        slots[index] = replacement;
+        return node.update(node.bitmap, slots, owner);
+    }
+
+    /**
+     * Builds the subtrie holding two reservations whose hashes agree below the given shift.
+     */
+    private static Node split(int shift, long hash1, Reservation first, long hash2, Reservation second, Object owner) {
+        int fragment1 = fragment(hash1, shift);
+        int fragment2 = fragment(hash2, shift);
+        if (fragment1 == fragment2) {
+            return new Node(1 << fragment1, new Object[] {split(shift + BITS, hash1, first, hash2, second, owner)},
+                    owner);
+        }
+        Object[] slots = fragment1 < fragment2 ? new Object[] {first, second} : new Object[] {second, first};
+        return new Node((1 << fragment1) | (1 << fragment2), slots, owner);
+    }
+
+    /**
+     * Copies the path to a reservation's slot without it, pulling a lone remaining reservation up
+     * into its parent so the trie stays as shallow as it would be had it never been split.
+     *
+     * @return the new node, the same node if the id is absent, or null if the node became empty
+     */
+    private static Node remove(Node node, int shift, long hash, long id) {
+        int bit = 1 << fragment(hash, shift);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        int index = node.index(bit);
+        Object slot = node.slots[index];
+        Object replacement;
+        if (slot instanceof Node) {
+            Node child = remove((Node) slot, shift + BITS, hash, id);
+            if (child == slot) {
+                return node;
+            }
+            replacement = child != null && child.slots.length == 1 && child.slots[0] instanceof Reservation
+                    ? child.slots[0] : child;
+        } else if (((Reservation) slot).getId() == id) {
+            replacement = null;
+        } else {
+            return node;
+        }
+
+        if (replacement != null) {
+            Object[] slots = node.slots.clone();
+            slots[index] = replacement;
+            return new Node(node.bitmap, slots, null);
+        }
+        if (node.slots.length == 1) {
+            return null;
+        }
+        Object[] slots = new Object[node.slots.length - 1];
+        System.arraycopy(node.slots, 0, slots, 0, index);
+        System.arraycopy(node.slots, index + 1, slots, index, slots.length - index);
+        return new Node(node.bitmap & ~bit, slots, null);
+    }
+
+    /**
+     * Mixes the bits of an id so that sequential ids spread across the trie.
+     * Multiplying by an odd constant and folding the high half into the low half are both
+     * invertible, so distinct ids keep distinct hashes.
+     */
+    private static long hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Gets the five bits of a hash that choose the slot at a level of the trie.
+     */
+    private static int fragment(long hash, int shift) {
+        return (int) (hash >>> shift) & MASK;
+    }
+
+    /**
+     * A trie node holding only its occupied slots, with a bitmap of which of the 32 they are.
+     * Each slot is either a Reservation or a child Node. A node is only ever changed by the call
+     * that owns it, before the map holding it is returned.
+     */
+    private static final class Node {
+        private int bitmap;
+        private Object[] slots;
+        private final Object owner;
+
+        /**
+         * Constructs a node.
+         */
+        private Node(int bitmap, Object[] slots, Object owner) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+            this.owner = owner;
+        }
+
+        /**
+         * Checks if a call holding the given token may change this node in place.
+         */
+        private boolean isOwnedBy(Object token) {
+            return token != null && owner == token;
+        }
+
+        /**
+         * Gives this node new contents if the token owns it, or returns a copy that the token owns.
+         */
+        private Node update(int bitmap, Object[] slots, Object token) {
+            if (isOwnedBy(token)) {
+                this.bitmap = bitmap;
+                this.slots = slots;
+                return this;
+            }
+            return new Node(bitmap, slots, token);
+        }
+
+        /**
+         * Gets the position in the slot array of the slot with the given bit.
+         */
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    /**
+     * Walks the trie depth first with an explicit stack of nodes and positions.
+     */
+    private static final class TrieIterator implements Iterator<Reservation> {
+        private final Node[] nodes = new Node[64 / BITS + 2];
+        private final int[] positions = new int[nodes.length];
+        private int depth = -1;
+        private Reservation next;
+
+        /**
+         * Constructs an iterator starting at the root.
+         */
+        private TrieIterator(Node root) {
+            if (root != null) {
+                nodes[++depth] = root;
+            }
+            next = advance();
+        }
+
+        /**
+         * Finds the next reservation, descending into child nodes and popping finished ones.
+         */
+        private Reservation advance() {
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                if (positions[depth] == node.slots.length) {
+                    depth--;
+                    continue;
+                }
+                Object slot = node.slots[positions[depth]++];
+                if (slot instanceof Reservation) {
+                    return (Reservation) slot;
+                }
+                nodes[++depth] = (Node) slot;
+                positions[depth] = 0;
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Reservation next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Reservation reservation = next;
+            next = advance();
+            return reservation;
+        }
+    }
+}
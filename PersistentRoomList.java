@@ -0,0 +1,145 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of rooms stored as a trie of 32-slot arrays indexed by the bits of the position.
+ * Appending a room copies only the arrays on the path to the last position and shares the rest with
+ * the original list. Removal rebuilds the list, which is fine for the rare removal of a room,
+ * and a list of many rooms added at once is built level by level rather than room by room.
+ */
+public class PersistentRoomList extends AbstractList<Room> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Object[] NO_SLOTS = new Object[0];
+    private static final PersistentRoomList EMPTY = new PersistentRoomList(NO_SLOTS, 0, 0);
+
+    private final Object[] root;
+    private final int shift;
+    private final int size;
+
+    /**
+     * Constructs a list over a trie.
+     *
+     * @param root  the root array
+     * @param shift the number of bits of a position consumed below the root
+     * @param size  the number of rooms
+     */
+    private PersistentRoomList(Object[] root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    /**
+     * Gets the empty list.
+     *
+     * @return the empty list
+     */
+    public static PersistentRoomList empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a list holding the given rooms, filling each array of the trie once.
+     *
+     * @param rooms the rooms, in order
+     * @return the new list
+     */
+    public static PersistentRoomList of(List<Room> rooms) {
+        if (rooms.isEmpty()) {
+            return EMPTY;
+        }
+        Object[] level = rooms.toArray();
+        int shift = 0;
+        while (level.length > 1 << BITS) {
+            Object[] parents = new Object[(level.length + MASK) >>> BITS];
+            for (int i = 0; i < parents.length; i++) {
+                int from = i << BITS;
+                parents[i] = Arrays.copyOfRange(level, from, Math.min(from + (1 << BITS), level.length));
+            }
+            level = parents;
+            shift += BITS;
+        }
+        return new PersistentRoomList(level, shift, rooms.size());
+    }
+
+    /**
+     * Gets the room at a position.
+     *
+     * @param index the position
+     * @return the room
+     */
+    @Override
+    public Room get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return (Room) node[index & MASK];
+    }
+
+    /**
+     * Gets the number of rooms in the list.
+     *
+     * @return the number of rooms
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a list with a room appended, adding a level above the root when the trie is full.
+     *
+     * @param room the room to append
+     * @return the new list
+     */
+    public PersistentRoomList plus(Room room) {
+        if (size == 1 << (shift + BITS)) {
+            Object[] grown = assoc(new Object[] {root}, shift + BITS, size, room);
+            return new PersistentRoomList(grown, shift + BITS, size + 1);
+        }
+        return new PersistentRoomList(assoc(root, shift, size, room), shift, size + 1);
+    }
+
+    /**
+     * Returns a list without a room, keeping the order of the others.
+     *
+     * @param room the room to remove, compared by identity
+     * @return the new list, or this list if it does not hold the room
+     */
+    public PersistentRoomList minus(Room room) {
+        ArrayList<Room> rest = new ArrayList<>(size);
+        boolean found = false;
+        for (Room next : this) {
+            if (next == room && !found) {
+                found = true;
+            } else {
+                rest.add(next);
+            }
+        }
+        return found ? of(rest) : this;
+    }
+
+    /**
+     * Copies the path to a position, storing a room there and creating missing arrays on the way.
+     * Arrays grow only as far as their last used slot, so a partly filled trie stays small.
+     */
+    private static Object[] assoc(Object[] node, int level, int index, Room room) {
+        int slot = (index >>> level) & MASK;
+        Object[] copy = Arrays.copyOf(node, Math.max(node.length, slot + 1));
+        if (level == 0) {
+            copy[slot] = room;
+        } else {
+            Object[] child = slot < node.length ? (Object[]) node[slot] : NO_SLOTS;
+            copy[slot] = assoc(child, level - BITS, index, room);
+        }
+        return copy;
+    }
+}
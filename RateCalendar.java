@@ -0,0 +1,119 @@
+import java.util.Arrays;
+
+/**
+ * Holds a hotel's nightly rate multipliers, keyed by epoch day. A room's rate for a night
+ * is its price per night times the multiplier of that night, and nights without a
+ * modified rate have a multiplier of 1. The multipliers are stored with their prefix sums,
+ * so the price of any stay is two array lookups.
+ *
+ * Quotes read an immutable set of arrays published through a volatile field, so they take
+ * no lock and allocate nothing. Changing rates builds and publishes a new set.
+ */
+public class RateCalendar {
+    private volatile Rates rates = new Rates(0, new double[0]);
+
+    /**
+     * Quotes the total price of a stay in the range [from, to), rounded to cents.
+     *
+     * @param pricePerNight the room's price per night
+     * @param from          the epoch day of the first night
+     * @param to            the epoch day after the last night
+     * @return the total price of the stay
+     */
+    public double quote(double pricePerNight, long from, long to) {
+        if (from >= to) {
+            return 0;
+        }
+        Rates current = rates;
+        long start = Math.max(from, current.origin);
+        long end = Math.min(to, current.origin + current.multipliers.length);
+        double sum = to - from;
+        if (start < end) {
+            sum += current.prefix[(int) (end - current.origin)] - current.prefix[(int) (start - current.origin)] - (end - start);
+        }
+        return Math.round(pricePerNight * sum * 100) / 100.0;
+    }
+
+    /**
+     * Gets the rate multiplier of a night.
+     *
+     * @param day the epoch day of the night
+     * @return the multiplier, 1 if the night's rate was never modified
+     */
+    public double getMultiplier(long day) {
+        Rates current = rates;
+        long index = day - current.origin;
+        return index < 0 || index >= current.multipliers.length ? 1.0 : current.multipliers[(int) index];
+    }
+
+    /**
+     * Sets the rate multiplier of every night in the range [from, to).
+     *
+     * @param from       the epoch day of the first night
+     * @param to         the epoch day after the last night
+     * @param multiplier the multiplier, for example 0.8 for a 20% discount
+     */
+    public synchronized void setMultiplier(long from, long to, double multiplier) {
+        if (from >= to) {
+            return;
+        }
+        Rates current = rates;
+        double[] multipliers = current.multipliers;
+        long origin = multipliers.length == 0 ? from : Math.min(current.origin, from);
+        long end = multipliers.length == 0 ? to : Math.max(current.origin + multipliers.length, to);
+
+        double[] updated = new double[(int) (end - origin)];
+        Arrays.fill(updated, 1.0);
+        if (multipliers.length > 0) {
+            System.arraycopy(multipliers, 0, updated, (int) (current.origin - origin), multipliers.length);
+        }
+        Arrays.fill(updated, (int) (from - origin), (int) (to - origin), multiplier);
+        rates = new Rates(origin, updated);
+    }
+
+    /**
+     * Replaces every multiplier, for example when restoring a snapshot.
+     *
+     * @param origin      the epoch day of the first stored night
+     * @param multipliers the multipliers of the nights from the origin on
+     */
+    public synchronized void setMultipliers(long origin, double[] multipliers) {
+        rates = new Rates(origin, multipliers.clone());
+    }
+
+    /**
+     * Gets the first day of the span of nights whose multipliers are stored.
+     *
+     * @return the epoch day of the first stored night
+     */
+    public long getOrigin() {
+        return rates.origin;
+    }
+
+    /**
+     * Gets a copy of the stored multipliers, starting at the origin.
+     *
+     * @return the stored multipliers
+     */
+    public double[] getMultipliers() {
+        return rates.multipliers.clone();
+    }
+
+    /**
+     * An immutable span of multipliers and their prefix sums.
+     */
+    private static class Rates {
+        private final long origin;
+        private final double[] multipliers;
+        private final double[] prefix;
+
+        Rates(long origin, double[] multipliers) {
+            this.origin = origin;
+            this.multipliers = multipliers;
+            this.prefix = new double[multipliers.length + 1];
+            for (int i = 0; i < multipliers.length; i++) {
+                prefix[i + 1] = prefix[i] + multipliers[i];
+            }
+        }
+    }
+}
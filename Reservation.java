@@ -2,15 +2,19 @@ import java.time.LocalDate;
 
 /**
  * Represents a reservation in the hotel reservation system.
+ * Each reservation recorded by a hotel has an id that is unique within that hotel.
  */
 public class Reservation {
+    private long id;
     private String guestName;
     private Room room;
     private LocalDate checkIn;
     private LocalDate checkOut;
+    private double totalPrice;
 
     /**
      * Constructs a new Reservation with the specified guest name, room, check-in date, and check-out date.
+     * The total price is the room's current price per night for every night of the stay.
      *
      * @param guestName the name of the guest
      * @param room the room reserved
@@ -18,10 +22,58 @@ public class Reservation {
      * @param checkOut the check-out date
      */
     public Reservation(String guestName, Room room, LocalDate checkIn, LocalDate checkOut) {
+        this(guestName, room, checkIn, checkOut,
+                room.getPricePerNight() * (checkOut.toEpochDay() - checkIn.toEpochDay()));
+    }
+
+    /**
+     * Constructs a new Reservation with an already agreed total price.
+     *
+     * @param guestName the name of the guest
+     * @param room the room reserved
+     * @param checkIn the check-in date
+     * @param checkOut the check-out date
+     * @param totalPrice the total price of the stay
+     */
+    public Reservation(String guestName, Room room, LocalDate checkIn, LocalDate checkOut, double totalPrice) {
+        this(0, guestName, room, checkIn, checkOut, totalPrice);
+    }
+
+    /**
+     * Constructs a new Reservation with an id it was previously given, for example when it is restored.
+     *
+     * @param id the id of the reservation, or 0 to let the hotel assign one
+     * @param guestName the name of the guest
+     * @param room the room reserved
+     * @param checkIn the check-in date
+     * @param checkOut the check-out date
+     * @param totalPrice the total price of the stay
+     */
+    public Reservation(long id, String guestName, Room room, LocalDate checkIn, LocalDate checkOut, double totalPrice) {
+        this.id = id;
         this.guestName = guestName;
         this.room = room;
         this.checkIn = checkIn;
         this.checkOut = checkOut;
+        this.totalPrice = totalPrice;
+    }
+
+    /**
+     * Gets the id of the reservation.
+     *
+     * @return the id, or 0 if the reservation has not been recorded by a hotel yet
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gives the reservation its id when a hotel records it.
+     *
+     * @param id the id of the reservation
+     */
+    void assignId(long id) {
+        this.id = id;
     }
 
     /**
@@ -59,4 +111,13 @@ public class Reservation {
     public LocalDate getCheckOut() {
         return checkOut;
     }
+
+    /**
+     * Gets the total price of the stay, fixed when the reservation was made.
+     *
+     * @return the total price
+     */
+    public double getTotalPrice() {
+        return totalPrice;
+    }
 }
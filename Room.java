@@ -1,13 +1,25 @@
 import java.time.LocalDate;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Represents a room in a hotel.
+ * Availability and reservation state are guarded by the room's own monitor,
+ * so bookings of different rooms never contend with each other.
+ * A room either holds its own name, price and calendar, or is a view over a slot of a
+ * RoomTable that stores them for a very large hotel.
  */
 public abstract class Room {
     private String name;
-    private boolean[] availability;
+    private AvailabilityCalendar availability;
     private double pricePerNight;
+    private TreeMap<Long, Reservation> reservations;
+    private final RoomTable table;
+    private final int slot;
+    private int typeSlot = -1;
 
     /**
      * Constructs a new Room with the specified name and price per night.
@@ -18,8 +30,47 @@ public abstract class Room {
     public Room(String name, double pricePerNight) {
         this.name = name;
         this.pricePerNight = pricePerNight;
-        this.availability = new boolean[31];
-        Arrays.fill(availability, true);
+        this.availability = new AvailabilityCalendar();
+        this.table = null;
+        this.slot = -1;
+    }
+
+    /**
+     * Constructs a view over a room stored in a RoomTable.
+     *
+     * @param table the table holding the room
+     * @param slot the slot of the room in the table
+     */
+    protected Room(RoomTable table, int slot) {
+        this.table = table;
+        this.slot = slot;
+    }
+
+    /**
+     * Checks if the room is a view over a slot of a RoomTable.
+     *
+     * @return true if the room is stored in a table, false otherwise
+     */
+    public boolean isCompact() {
+        return table != null;
+    }
+
+    /**
+     * Gets the slot of the room in its hotel's RoomTypeIndex.
+     *
+     * @return the slot, or -1 if the room is not indexed
+     */
+    int getTypeSlot() {
+        return typeSlot;
+    }
+
+    /**
+     * Sets the slot of the room in its hotel's RoomTypeIndex.
+     *
+     * @param typeSlot the slot, or -1 when the room leaves the index
+     */
+    void setTypeSlot(int typeSlot) {
+        this.typeSlot = typeSlot;
     }
 
     /**
@@ -28,7 +79,7 @@ public abstract class Room {
      * @return the name of the room
      */
     public String getName() {
-        return name;
+        return table == null ? name : table.getName(slot);
     }
 
     /**
@@ -37,7 +88,11 @@ public abstract class Room {
      * @param newName the new name for the room
      */
     public void renameRoom(String newName) {
-        this.name = newName;
+        if (table == null) {
+            this.name = newName;
+        } else {
+            table.rename(slot, newName);
+        }
     }
 
     /**
@@ -46,7 +101,7 @@ public abstract class Room {
      * @return the price per night for the room
      */
     public double getPricePerNight() {
-        return pricePerNight;
+        return table == null ? pricePerNight : table.getPrice(slot);
     }
 
     /**
@@ -55,71 +110,254 @@ public abstract class Room {
      * @param pricePerNight the new price per night for the room
      */
     public void setPricePerNight(double pricePerNight) {
-        this.pricePerNight = pricePerNight;
+        if (table == null) {
+            this.pricePerNight = pricePerNight;
+        } else {
+            table.setPrice(slot, pricePerNight);
+        }
     }
 
     /**
-     * Checks if the room is available on the specified date.
+     * Gets a copy of the room's availability calendar.
+     *
+     * @return a copy of the availability calendar
+     */
+    public synchronized AvailabilityCalendar getAvailability() {
+        if (table != null) {
+            return table.getCalendar(slot);
+        }
+        return new AvailabilityCalendar(availability.getOrigin(), availability.getWords());
+    }
+
+    /**
+     * Replaces the room's availability calendar, for example when restoring a snapshot.
+     *
+     * @param availability the new availability calendar
+     */
+    public synchronized void setAvailability(AvailabilityCalendar availability) {
+        if (table == null) {
+            this.availability = availability;
+        } else {
+            table.setCalendar(slot, availability);
+        }
+    }
+
+    /**
+     * Checks if the room is available on the night of the specified date.
      *
      * @param date the date to check availability for
      * @return true if the room is available, false otherwise
      */
-    public boolean isAvailable(LocalDate date) {
-        int day = date.getDayOfMonth() - 1;
-        return availability[day];
+    public synchronized boolean isAvailable(LocalDate date) {
+        long day = date.toEpochDay();
+        return table == null ? !availability.isBooked(day) : !table.isBooked(slot, day);
     }
 
     /**
-     * Checks if the room is available between the specified check-in and check-out dates.
+     * Checks if the room is available for every night from check-in up to, but not including, check-out.
      *
      * @param checkIn the check-in date
      * @param checkOut the check-out date
      * @return true if the room is available for the entire period, false otherwise
      */
-    public boolean isAvailable(LocalDate checkIn, LocalDate checkOut) {
-        int startDay = checkIn.getDayOfMonth() - 1;
-        int endDay = checkOut.getDayOfMonth() - 1;
-        for (int i = startDay; i <= endDay; i++) {
-            if (!availability[i]) {
-                return false;
+    public synchronized boolean isAvailable(LocalDate checkIn, LocalDate checkOut) {
+        return isFree(checkIn.toEpochDay(), checkOut.toEpochDay());
+    }
+
+    /**
+     * Books the room for the nights from check-in up to, but not including, check-out,
+     * but only if every one of those nights is still available.
+     * The check and the booking happen as one atomic step.
+     *
+     * @param checkIn the check-in date
+     * @param checkOut the check-out date
+     * @return true if the room was booked, false if any night was already taken or the stay has no nights
+     */
+    public boolean tryBook(LocalDate checkIn, LocalDate checkOut) {
+        long started = System.nanoTime();
+        long from = checkIn.toEpochDay();
+        long to = checkOut.toEpochDay();
+        boolean booked;
+        synchronized (this) {
+            booked = from < to && isFree(from, to);
+            if (booked) {
+                book(from, to);
             }
         }
-        return true;
+        Metrics.ROOM_BOOK.record(started, booked);
+        return booked;
+    }
+
+    /**
+     * Tries to book each of the given requests in order, in a single pass over the calendar.
+     * Each request is booked only if its nights are still available after the earlier ones.
+     * The pass counts as a failed room booking if no request was booked.
+     *
+     * @param requests the booking requests for this room, usually sorted by check-in date
+     * @return for each request, true if it was booked and false if any night was already taken
+     */
+    public boolean[] tryBook(List<BookingRequest> requests) {
+        long started = System.nanoTime();
+        long[] from = new long[requests.size()];
+        long[] to = new long[from.length];
+        for (int i = 0; i < from.length; i++) {
+            from[i] = requests.get(i).getCheckIn().toEpochDay();
+            to[i] = requests.get(i).getCheckOut().toEpochDay();
+        }
+        boolean[] booked;
+        synchronized (this) {
+            booked = table == null ? availability.tryBook(from, to) : table.tryBook(slot, from, to);
+        }
+        boolean any = false;
+        for (boolean b : booked) {
+            any |= b;
+        }
+        Metrics.ROOM_BOOK.record(started, any);
+        return booked;
     }
 
     /**
-     * Books the room for the specified period.
+     * Books the room for the nights from check-in up to, but not including, check-out.
      *
      * @param checkIn the check-in date
      * @param checkOut the check-out date
      */
-    public void bookRoom(LocalDate checkIn, LocalDate checkOut) {
-        int startDay = checkIn.getDayOfMonth() - 1;
-        int endDay = checkOut.getDayOfMonth() - 1;
-        for (int i = startDay; i <= endDay; i++) {
-            availability[i] = false;
-        }
+    public synchronized void bookRoom(LocalDate checkIn, LocalDate checkOut) {
+        book(checkIn.toEpochDay(), checkOut.toEpochDay());
     }
 
     /**
-     * Cancels the booking for the specified period.
+     * Cancels the booking for the nights from check-in up to, but not including, check-out.
      *
      * @param checkIn the check-in date
      * @param checkOut the check-out date
      */
-    public void cancelBooking(LocalDate checkIn, LocalDate checkOut) {
-        int startDay = checkIn.getDayOfMonth() - 1;
-        int endDay = checkOut.getDayOfMonth() - 1;
-        for (int i = startDay; i <= endDay; i++) {
-            availability[i] = true;
+    public synchronized void cancelBooking(LocalDate checkIn, LocalDate checkOut) {
+        if (table == null) {
+            availability.release(checkIn.toEpochDay(), checkOut.toEpochDay());
+        } else {
+            table.release(slot, checkIn.toEpochDay(), checkOut.toEpochDay());
+        }
+    }
+
+    /**
+     * Checks the room's own calendar or its table row. The caller holds the room's lock.
+     */
+    private boolean isFree(long from, long to) {
+        return table == null ? availability.isFree(from, to) : table.isFree(slot, from, to);
+    }
+
+    /**
+     * Books nights in the room's own calendar or its table row. The caller holds the room's lock.
+     */
+    private void book(long from, long to) {
+        if (table == null) {
+            availability.book(from, to);
+        } else {
+            table.book(slot, from, to);
+        }
+    }
+
+    /**
+     * Records a reservation against this room.
+     * Reservations of a room never overlap because their nights are booked in the
+     * availability calendar first, so ordering them by check-in also orders them by
+     * check-out and the map doubles as an interval tree.
+     *
+     * @param reservation the reservation to be recorded
+     */
+    public synchronized void addReservation(Reservation reservation) {
+        if (reservations == null) {
+            reservations = new TreeMap<>();
+        }
+        reservations.put(reservation.getCheckIn().toEpochDay(), reservation);
+    }
+
+    /**
+     * Removes a reservation previously recorded against this room.
+     *
+     * @param reservation the reservation to be removed
+     */
+    public synchronized void removeReservation(Reservation reservation) {
+        if (reservations == null) {
+            return;
+        }
+        reservations.remove(reservation.getCheckIn().toEpochDay(), reservation);
+    }
+
+    /**
+     * Gets the reservations of this room ordered by check-in date.
+     * The view is backed by the room's live index, so the caller must hold this room's lock
+     * while calling this method and for as long as it iterates the view.
+     *
+     * @return a read-only view of the reservations of this room
+     */
+    public Collection<Reservation> getReservations() {
+        if (reservations == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(reservations.values());
+    }
+
+    /**
+     * Gets the reservations of this room that occupy at least one night in [from, to),
+     * ordered by check-in date.
+     * The view is backed by the room's live index, so the caller must hold this room's lock
+     * while calling this method and for as long as it iterates the view.
+     *
+     * @param from the first night of the range
+     * @param to the day after the last night of the range
+     * @return a read-only view of the overlapping reservations
+     */
+    public Collection<Reservation> getReservations(LocalDate from, LocalDate to) {
+        if (reservations == null) {
+            return Collections.emptyList();
+        }
+        long start = from.toEpochDay();
+        Map.Entry<Long, Reservation> before = reservations.lowerEntry(start);
+        if (before != null && before.getValue().getCheckOut().toEpochDay() > start) {
+            start = before.getKey();
+        }
+        return Collections.unmodifiableCollection(reservations.subMap(start, true, to.toEpochDay(), false).values());
+    }
+
+    /**
+     * Checks if any reservation is recorded against this room.
+     *
+     * @return true if the room has a reservation, false otherwise
+     */
+    public synchronized boolean hasReservations() {
+        return reservations != null && !reservations.isEmpty();
+    }
+
+    /**
+     * Gets the run of free nights containing a free night of this room, from the check-out of
+     * the reservation before it to the check-in of the one after it.
+     *
+     * @param night a night no reservation of this room occupies, as an epoch day
+     * @return the first free night and the day after the last, or Long.MIN_VALUE and Long.MAX_VALUE where unbounded
+     */
+    public synchronized long[] getFreeRun(long night) {
+        long start = Long.MIN_VALUE;
+        long end = Long.MAX_VALUE;
+        if (reservations != null) {
+            Map.Entry<Long, Reservation> before = reservations.lowerEntry(night);
+            if (before != null) {
+                start = before.getValue().getCheckOut().toEpochDay();
+            }
+            Long after = reservations.ceilingKey(night);
+            if (after != null) {
+                end = after;
+            }
         }
+        return new long[] {start, end};
     }
 
     @Override
     public String toString() {
         return "Room{" +
-                "name='" + name + '\'' +
-                ", pricePerNight=" + pricePerNight +
+                "name='" + getName() + '\'' +
+                ", pricePerNight=" + getPricePerNight() +
                 '}';
     }
 }
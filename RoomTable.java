@@ -0,0 +1,393 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stores the rooms of a very large hotel in parallel primitive arrays instead of one
+ * object graph per room. Each room is a slot: its type, price and removal flag sit in
+ * arrays indexed by slot, and its availability is a row of long words with its own origin
+ * epoch day. A row is allocated on the room's first booking and spans only that room's
+ * nights, so a far-off booking of one room never widens the rows of the others. Rooms keep
+ * the default name "Room n" for slot n - 1 without storing a string until they are renamed.
+ *
+ * The Room objects handed out are views over a slot. A view serializes operations on its
+ * own row, including growing it, through its monitor, as any room does; the table's read
+ * lock is held while rows are used, and its write lock while the arrays are reallocated to
+ * add rooms.
+ */
+public class RoomTable {
+    static final byte STANDARD = 0;
+    static final byte DELUXE = 1;
+    static final String DEFAULT_NAME_PREFIX = "Room ";
+    private static final int MIN_CAPACITY = 64;
+    private static final int MIN_WORDS_PER_ROOM = 8;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HashMap<String, Integer> customNames = new HashMap<>();
+    private int size;
+    private byte[] types = new byte[MIN_CAPACITY];
+    private double[] prices = new double[MIN_CAPACITY];
+    private boolean[] removed = new boolean[MIN_CAPACITY];
+    private String[] names = new String[MIN_CAPACITY];
+    private Room[] views = new Room[MIN_CAPACITY];
+    private long[] origins = new long[MIN_CAPACITY];
+    private long[][] rows = new long[MIN_CAPACITY][];
+
+    /**
+     * Adds a room to the table.
+     *
+     * @param type          STANDARD or DELUXE
+     * @param name          the name of the room, or null for the default name of its slot
+     * @param pricePerNight the price per night of the room
+     * @return the view of the new room
+     */
+    public Room add(byte type, String name, double pricePerNight) {
+        lock.writeLock().lock();
+        try {
+            if (size == types.length) {
+                int capacity = size * 2;
+                types = Arrays.copyOf(types, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                removed = Arrays.copyOf(removed, capacity);
+                names = Arrays.copyOf(names, capacity);
+                views = Arrays.copyOf(views, capacity);
+                origins = Arrays.copyOf(origins, capacity);
+                rows = Arrays.copyOf(rows, capacity);
+            }
+            int slot = size++;
+            types[slot] = type;
+            prices[slot] = pricePerNight;
+            if (name != null && !name.equals(DEFAULT_NAME_PREFIX + (slot + 1))) {
+                names[slot] = name;
+                customNames.put(name, slot);
+            }
+            views[slot] = type == DELUXE ? new DeluxeRoom(this, slot) : new StandardRoom(this, slot);
+            return views[slot];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the room that currently has the given name.
+     *
+     * @param name the name of the room
+     * @return the view of the room, or null if no room in the table has the name
+     */
+    public Room find(String name) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(name);
+            return slot < 0 ? null : views[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the slot of the room that currently has the given name, or -1 if there is none.
+     * A default name is parsed back into its slot. The caller holds the read or write lock.
+     */
+    private int slotOf(String name) {
+        Integer custom = customNames.get(name);
+        if (custom != null) {
+            return removed[custom] ? -1 : custom;
+        }
+        if (!name.startsWith(DEFAULT_NAME_PREFIX)) {
+            return -1;
+        }
+        int slot;
+        try {
+            slot = Integer.parseInt(name.substring(DEFAULT_NAME_PREFIX.length())) - 1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (slot < 0 || slot >= size || names[slot] != null || removed[slot]
+                || !name.equals(DEFAULT_NAME_PREFIX + (slot + 1))) {
+            return -1;
+        }
+        return slot;
+    }
+
+    /**
+     * Marks a room as removed, so that it can no longer be found by name.
+     * Its view keeps working for the reservations that still refer to it.
+     *
+     * @param name the name of the room
+     */
+    public void remove(String name) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(name);
+            if (slot < 0) {
+                return;
+            }
+            removed[slot] = true;
+            if (names[slot] != null) {
+                customNames.remove(names[slot]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the name of a room.
+     *
+     * @param slot the slot of the room
+     * @return the name of the room
+     */
+    public String getName(int slot) {
+        lock.readLock().lock();
+        try {
+            return names[slot] != null ? names[slot] : DEFAULT_NAME_PREFIX + (slot + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Renames a room. The caller checks that the new name is not taken.
+     *
+     * @param slot    the slot of the room
+     * @param newName the new name for the room
+     */
+    public void rename(int slot, String newName) {
+        lock.writeLock().lock();
+        try {
+            if (names[slot] != null) {
+                customNames.remove(names[slot]);
+            }
+            names[slot] = newName;
+            if (!removed[slot]) {
+                customNames.put(newName, slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the price per night of a room.
+     *
+     * @param slot the slot of the room
+     * @return the price per night
+     */
+    public double getPrice(int slot) {
+        lock.readLock().lock();
+        try {
+            return prices[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the price per night of a room.
+     *
+     * @param slot          the slot of the room
+     * @param pricePerNight the new price per night
+     */
+    public void setPrice(int slot, double pricePerNight) {
+        lock.writeLock().lock();
+        try {
+            prices[slot] = pricePerNight;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if the night starting on the given epoch day is booked for a room.
+     *
+     * @param slot the slot of the room
+     * @param day  the epoch day of the night
+     * @return true if the night is booked, false otherwise
+     */
+    public boolean isBooked(int slot, long day) {
+        lock.readLock().lock();
+        try {
+            long[] row = rows[slot];
+            long bit = day - origins[slot];
+            if (row == null || bit < 0 || bit >= (long) row.length << 6) {
+                return false;
+            }
+            return (row[(int) (bit >>> 6)] & (1L << bit)) != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if every night in the range [from, to) is free for a room.
+     *
+     * @param slot the slot of the room
+     * @param from the epoch day of the first night
+     * @param to   the epoch day after the last night
+     * @return true if none of the nights are booked, false otherwise
+     */
+    public boolean isFree(int slot, long from, long to) {
+        lock.readLock().lock();
+        try {
+            long[] row = rows[slot];
+            if (row == null) {
+                return true;
+            }
+            long start = Math.max(from - origins[slot], 0);
+            long end = Math.min(to - origins[slot], (long) row.length << 6);
+            return start >= end || !AvailabilityCalendar.anySet(row, 0, start, end);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marks every night in the range [from, to) as booked for a room, growing only
+     * the room's own row first if the range falls outside it.
+     *
+     * @param slot the slot of the room
+     * @param from the epoch day of the first night
+     * @param to   the epoch day after the last night
+     * @throws IllegalArgumentException if the row cannot span both its current nights and the range
+     */
+    public void book(int slot, long from, long to) {
+        if (from >= to) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            ensureCovers(slot, from, to);
+            AvailabilityCalendar.setRange(rows[slot], 0, from - origins[slot], to - origins[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Books each of several ranges for a room whose nights are all still free, in the given order,
+     * growing the room's row once and checking and booking the ranges in a single walk over it.
+     *
+     * @param slot the slot of the room
+     * @param from the epoch days of the first nights
+     * @param to   the epoch days after the last nights
+     * @return for each range, true if it was booked and false if it was empty or any night was taken
+     * @throws IllegalArgumentException if the row cannot span both its current nights and the ranges
+     */
+    public boolean[] tryBook(int slot, long[] from, long[] to) {
+        boolean[] booked = new boolean[from.length];
+        long[] span = AvailabilityCalendar.span(from, to);
+        if (span == null) {
+            return booked;
+        }
+        lock.readLock().lock();
+        try {
+            ensureCovers(slot, span[0], span[1]);
+            long[] row = rows[slot];
+            long origin = origins[slot];
+            for (int i = 0; i < from.length; i++) {
+                long start = from[i] - origin;
+                long end = to[i] - origin;
+                if (start < end && !AvailabilityCalendar.anySet(row, 0, start, end)) {
+                    AvailabilityCalendar.setRange(row, 0, start, end);
+                    booked[i] = true;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return booked;
+    }
+
+    /**
+     * Marks every night in the range [from, to) as available again for a room.
+     *
+     * @param slot the slot of the room
+     * @param from the epoch day of the first night
+     * @param to   the epoch day after the last night
+     */
+    public void release(int slot, long from, long to) {
+        lock.readLock().lock();
+        try {
+            long[] row = rows[slot];
+            if (row == null) {
+                return;
+            }
+            long start = Math.max(from - origins[slot], 0);
+            long end = Math.min(to - origins[slot], (long) row.length << 6);
+            if (start < end) {
+                AvailabilityCalendar.clearRange(row, 0, start, end);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies a room's row into a standalone availability calendar.
+     *
+     * @param slot the slot of the room
+     * @return a copy of the room's availability
+     */
+    public AvailabilityCalendar getCalendar(int slot) {
+        lock.readLock().lock();
+        try {
+            long[] row = rows[slot];
+            return row == null ? new AvailabilityCalendar() : new AvailabilityCalendar(origins[slot], row.clone());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces a room's row with the nights booked in a calendar, for example when restoring a snapshot.
+     *
+     * @param slot     the slot of the room
+     * @param calendar the calendar to copy
+     */
+    public void setCalendar(int slot, AvailabilityCalendar calendar) {
+        long[] source = calendar.getWords();
+        int first = 0;
+        int last = source.length - 1;
+        while (first <= last && source[first] == 0) {
+            first++;
+        }
+        while (last >= first && source[last] == 0) {
+            last--;
+        }
+        lock.readLock().lock();
+        try {
+            if (first > last) {
+                rows[slot] = null;
+                return;
+            }
+            origins[slot] = calendar.getOrigin() + ((long) first << 6);
+            rows[slot] = Arrays.copyOfRange(source, first, last + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Grows a room's row so that the range [from, to) can be addressed, moving its origin back
+     * or its end forward, and allocates the row on the room's first booking. The new span is
+     * checked before anything changes. The caller holds the read lock and the room's monitor.
+     */
+    private void ensureCovers(int slot, long from, long to) {
+        long[] row = rows[slot];
+        if (row == null) {
+            long start = Math.floorDiv(from, 64) * 64;
+            rows[slot] = new long[Math.max(MIN_WORDS_PER_ROOM, AvailabilityCalendar.wordsFor(to - start))];
+            origins[slot] = start;
+            return;
+        }
+        long origin = origins[slot];
+        long newOrigin = Math.min(origin, Math.floorDiv(from, 64) * 64);
+        long end = Math.max(origin + ((long) row.length << 6), to);
+        int needed = AvailabilityCalendar.wordsFor(end - newOrigin);
+        if (newOrigin == origin && needed <= row.length) {
+            return;
+        }
+        rows[slot] = AvailabilityCalendar.grow(row, origin, newOrigin, needed);
+        origins[slot] = newOrigin;
+    }
+}
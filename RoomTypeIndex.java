@@ -0,0 +1,228 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Indexes the rooms of one type in a hotel so that a free room can be found without
+ * checking every room's calendar. Each room holds a slot, and for every night the index
+ * keeps a bitset of the slots booked on that night, keyed by epoch day. A room remembers
+ * its own slot, since it belongs to a single hotel. The free rooms
+ * for a stay are the slots in use that are clear in the union of the stay's nights.
+ * The caller synchronizes access.
+ */
+public class RoomTypeIndex {
+    private static final int MIN_DAYS = 64;
+    private static final long[] NONE = new long[0];
+
+    private final ArrayList<Room> slots = new ArrayList<>();
+    private final ArrayList<Integer> unusedSlots = new ArrayList<>();
+    private long[] present = new long[0];
+    private long origin;
+    private long[][] booked = new long[0][];
+
+    /**
+     * Adds a room to the index, reusing the slot of a removed room if there is one.
+     *
+     * @param room the room to add
+     */
+    public void addRoom(Room room) {
+        int slot;
+        if (unusedSlots.isEmpty()) {
+            slot = slots.size();
+            slots.add(room);
+        } else {
+            slot = unusedSlots.remove(unusedSlots.size() - 1);
+            slots.set(slot, room);
+        }
+        room.setTypeSlot(slot);
+        if (slot >>> 6 >= present.length) {
+            present = Arrays.copyOf(present, Math.max(1, present.length * 2));
+        }
+        present[slot >>> 6] |= 1L << slot;
+    }
+
+    /**
+     * Checks if the index holds no rooms.
+     *
+     * @return true if every slot is unused, false otherwise
+     */
+    public boolean isEmpty() {
+        return slots.size() == unusedSlots.size();
+    }
+
+    /**
+     * Removes a room from the index and clears its slot on every night.
+     *
+     * @param room the room to remove
+     */
+    public void removeRoom(Room room) {
+        int slot = room.getTypeSlot();
+        if (slot < 0) {
+            return;
+        }
+        room.setTypeSlot(-1);
+        present[slot >>> 6] &= ~(1L << slot);
+        for (long[] day : booked) {
+            if (day != null && slot >>> 6 < day.length) {
+                day[slot >>> 6] &= ~(1L << slot);
+            }
+        }
+        slots.set(slot, null);
+        unusedSlots.add(slot);
+    }
+
+    /**
+     * Marks a room as booked or available for every night in the range [from, to).
+     * Rooms that are not in the index, such as removed rooms, are ignored.
+     *
+     * @param room   the room
+     * @param from   the epoch day of the first night
+     * @param to     the epoch day after the last night
+     * @param booked true to mark the nights booked, false to mark them available
+     */
+    public void mark(Room room, long from, long to, boolean booked) {
+        int slot = room.getTypeSlot();
+        if (slot < 0 || from >= to) {
+            return;
+        }
+        ensureCovers(from, to);
+        int word = slot >>> 6;
+        long bit = 1L << slot;
+        for (long day = from; day < to; day++) {
+            int index = (int) (day - origin);
+            long[] nights = this.booked[index];
+            if (nights == null || nights.length <= word) {
+                nights = Arrays.copyOf(nights == null ? NONE : nights, present.length);
+                this.booked[index] = nights;
+            }
+            if (booked) {
+                nights[word] |= bit;
+            } else {
+                nights[word] &= ~bit;
+            }
+        }
+    }
+
+    /**
+     * Finds a room that is free for every night in the range [from, to).
+     *
+     * @param from     the epoch day of the first night
+     * @param to       the epoch day after the last night
+     * @param policy   how to choose between several free rooms
+     * @param excluded slots to skip, or null; may be shorter than the slot range
+     * @return the slot of a free room, or -1 if there is none
+     */
+    public int find(long from, long to, AllocationPolicy policy, long[] excluded) {
+        long[] free = freeSlots(from, to, excluded);
+        if (policy == AllocationPolicy.BEST_FIT) {
+            long[] before = nightsOf(from - 1);
+            long[] after = nightsOf(to);
+            before = before == null ? NONE : before;
+            after = after == null ? NONE : after;
+            int slot = firstSlot(free, before, after);
+            if (slot < 0) {
+                slot = firstSlot(free, before, null);
+                int other = firstSlot(free, after, null);
+                slot = slot < 0 ? other : slot;
+            }
+            if (slot >= 0) {
+                return slot;
+            }
+        }
+        return firstSlot(free, null, null);
+    }
+
+    /**
+     * Adds every room that is free for every night in the range [from, to) to a list.
+     *
+     * @param from  the epoch day of the first night
+     * @param to    the epoch day after the last night
+     * @param rooms the list to add the free rooms to
+     */
+    public void collectFree(long from, long to, List<Room> rooms) {
+        long[] free = freeSlots(from, to, null);
+        for (int i = 0; i < free.length; i++) {
+            for (long word = free[i]; word != 0; word &= word - 1) {
+                rooms.add(slots.get((i << 6) + Long.numberOfTrailingZeros(word)));
+            }
+        }
+    }
+
+    /**
+     * Gets the room held in a slot.
+     *
+     * @param slot the slot
+     * @return the room in the slot
+     */
+    public Room getRoom(int slot) {
+        return slots.get(slot);
+    }
+
+    /**
+     * Returns the bitset of slots in use that are not excluded and are free on every night in [from, to).
+     */
+    private long[] freeSlots(long from, long to, long[] excluded) {
+        long[] free = present.clone();
+        if (excluded != null) {
+            for (int i = 0; i < excluded.length && i < free.length; i++) {
+                free[i] &= ~excluded[i];
+            }
+        }
+        for (long day = from; day < to; day++) {
+            long[] nights = nightsOf(day);
+            if (nights != null) {
+                for (int i = 0; i < nights.length; i++) {
+                    free[i] &= ~nights[i];
+                }
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Returns the bitset of slots booked on a night, or null if none are.
+     */
+    private long[] nightsOf(long day) {
+        long index = day - origin;
+        return index < 0 || index >= booked.length ? null : booked[(int) index];
+    }
+
+    /**
+     * Returns the lowest slot set in every given bitset, treating a null filter as all set
+     * and a missing filter word as clear.
+     */
+    private static int firstSlot(long[] free, long[] first, long[] second) {
+        for (int i = 0; i < free.length; i++) {
+            long word = free[i];
+            if (first != null) {
+                word &= i < first.length ? first[i] : 0;
+            }
+            if (second != null) {
+                word &= i < second.length ? second[i] : 0;
+            }
+            if (word != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Grows the day array so that the range [from, to) can be addressed.
+     */
+    private void ensureCovers(long from, long to) {
+        if (booked.length > 0 && from >= origin && to - origin <= booked.length) {
+            return;
+        }
+        long newOrigin = booked.length == 0 ? from : Math.min(origin, from < origin ? from - booked.length / 2 : from);
+        long end = booked.length == 0 ? to : Math.max(origin + booked.length, to);
+        int size = (int) Math.max(MIN_DAYS, Math.max(end - newOrigin, booked.length * 2L));
+
+        long[][] grown = new long[size][];
+        if (booked.length > 0) {
+            System.arraycopy(booked, 0, grown, (int) (origin - newOrigin), booked.length);
+        }
+        origin = newOrigin;
+        booked = grown;
+    }
+}
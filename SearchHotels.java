@@ -0,0 +1,83 @@
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * This class lets the user search all hotels for the cheapest rooms available over a stay.
+ */
+public class SearchHotels {
+    private static final int RESULT_LIMIT = 10;
+
+    private HotelRegistry registry;
+    private Scanner scanner;
+
+    /**
+     * Constructs a SearchHotels object with the hotel registry and a scanner for user input.
+     *
+     * @param registry the registry of hotels to search
+     * @param scanner the scanner to read user input
+     */
+    public SearchHotels(HotelRegistry registry, Scanner scanner) {
+        this.registry = registry;
+        this.scanner = scanner;
+    }
+
+    /**
+     * Prompts for the stay and room type and prints the cheapest available rooms.
+     */
+    public void execute() {
+        if (registry.isEmpty()) {
+            System.out.println("No hotels available.");
+            return;
+        }
+
+        LocalDate checkIn = getDateInput("Enter check-in date (YYYY-MM-DD): ");
+        LocalDate checkOut = getDateInput("Enter check-out date (YYYY-MM-DD): ");
+        scanner.nextLine();
+        if (!checkOut.isAfter(checkIn)) {
+            System.out.println("Check-out date must be after the check-in date.");
+            return;
+        }
+
+        System.out.print("Enter room type (Standard, Deluxe, or leave blank for any): ");
+        String typeName = scanner.nextLine().trim();
+        Class<? extends Room> type = null;
+        if (typeName.equalsIgnoreCase("Standard")) {
+            type = StandardRoom.class;
+        } else if (typeName.equalsIgnoreCase("Deluxe")) {
+            type = DeluxeRoom.class;
+        } else if (!typeName.isEmpty()) {
+            System.out.println("Unknown room type.");
+            return;
+        }
+
+        List<SearchResult> results = HotelSearch.search(registry.getHotels(), checkIn, checkOut, type, RESULT_LIMIT);
+        if (results.isEmpty()) {
+            System.out.println("No rooms are available for the specified dates.");
+            return;
+        }
+        for (int i = 0; i < results.size(); i++) {
+            SearchResult result = results.get(i);
+            System.out.println((i + 1) + ". " + result.getHotel().getName() + " - " + result.getRoom().getName()
+                    + " (" + result.getRoom().getClass().getSimpleName() + "): " + result.getTotalPrice());
+        }
+    }
+
+    /**
+     * Prompts the user for a date input.
+     *
+     * @param prompt The prompt message for the input.
+     * @return The LocalDate value input by the user.
+     */
+    private LocalDate getDateInput(String prompt) {
+        System.out.print(prompt);
+        while (true) {
+            try {
+                return LocalDate.parse(scanner.next(), DateTimeFormatter.ISO_LOCAL_DATE);
+            } catch (Exception e) {
+                System.out.print("Invalid date format. " + prompt);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Represents one available room found by a cross-hotel search, with the price of the stay.
+ */
+public class SearchResult {
+    private Hotel hotel;
+    private Room room;
+    private double totalPrice;
+
+    /**
+     * Constructs a new SearchResult for the specified hotel, room and price.
+     *
+     * @param hotel the hotel of the room
+     * @param room the available room
+     * @param totalPrice the total price of the stay in the room
+     */
+    public SearchResult(Hotel hotel, Room room, double totalPrice) {
+        this.hotel = hotel;
+        this.room = room;
+        this.totalPrice = totalPrice;
+    }
+
+    /**
+     * Gets the hotel of the room.
+     *
+     * @return the hotel
+     */
+    public Hotel getHotel() {
+        return hotel;
+    }
+
+    /**
+     * Gets the available room.
+     *
+     * @return the room
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * Gets the total price of the stay in the room.
+     *
+     * @return the total price
+     */
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+}
@@ -1,6 +1,6 @@
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -8,16 +8,16 @@ import java.util.Scanner;
  * It allows manual addition and cancellation of reservations.
  */
 public class SimulateBookings {
-    private ArrayList<Hotel> hotels;
+    private HotelRegistry registry;
     private Scanner scanner = new Scanner(System.in);
 
     /**
-     * Constructs a SimulateBookings object with a list of hotels.
+     * Constructs a SimulateBookings object with the hotel registry.
      *
-     * @param hotels the list of hotels to simulate bookings for
+     * @param registry the registry of hotels to simulate bookings for
      */
-    public SimulateBookings(ArrayList<Hotel> hotels) {
-        this.hotels = hotels;
+    public SimulateBookings(HotelRegistry registry) {
+        this.registry = registry;
     }
 
     /**
@@ -26,13 +26,13 @@ public class SimulateBookings {
      */
     public void execute() {
         System.out.println("Simulating bookings and cancellations...");
-        if (hotels.isEmpty()) {
+        if (registry.isEmpty()) {
             System.out.println("No hotels available for simulation.");
             return;
         }
 
         // Iterate over each hotel to simulate bookings and cancellations
-        for (Hotel hotel : hotels) {
+        for (Hotel hotel : registry.getHotels()) {
             while (true) {
                 printSimulationMenu(hotel.getName());
                 int choice = getIntInput("Choose an option: ");
@@ -74,19 +74,81 @@ public class SimulateBookings {
     private void addReservationToHotel(Hotel hotel) {
         System.out.print("Enter guest name: ");
         String guestName = scanner.nextLine();
-        String roomName = getStringInput("Enter room name: ");
+        String roomName = getStringInput("Enter room name, or Standard or Deluxe for any room of that type: ");
         LocalDate checkIn = getDateInput("Enter check-in date (YYYY-MM-DD): ");
         LocalDate checkOut = getDateInput("Enter check-out date (YYYY-MM-DD): ");
 
+        if (!checkOut.isAfter(checkIn)) {
+            System.out.println("Check-out date must be after the check-in date.");
+            return;
+        }
+        if (!Hotel.isWithinWindow(checkIn, checkOut)) {
+            System.out.println("Dates must be between " + Hotel.EARLIEST_DATE + " and " + Hotel.LATEST_DATE + ".");
+            return;
+        }
+        if (!Hotel.isValidName(guestName)) {
+            System.out.println("Guest names must be at most " + Hotel.MAX_NAME_LENGTH + " characters long.");
+            return;
+        }
+
         Room room = hotel.getRoom(roomName);
-        if (room == null || !room.isAvailable(checkIn, checkOut)) {
+        Class<? extends Room> type = null;
+        Reservation reservation = null;
+        if (room != null) {
+            type = room.getClass();
+            reservation = hotel.book(guestName, room, checkIn, checkOut);
+        } else if (roomName.equalsIgnoreCase("Standard")) {
+            type = StandardRoom.class;
+            reservation = hotel.bookRoomOfType(guestName, StandardRoom.class, checkIn, checkOut, AllocationPolicy.BEST_FIT);
+        } else if (roomName.equalsIgnoreCase("Deluxe")) {
+            type = DeluxeRoom.class;
+            reservation = hotel.bookRoomOfType(guestName, DeluxeRoom.class, checkIn, checkOut, AllocationPolicy.BEST_FIT);
+        }
+        if (reservation == null) {
             System.out.println("Room is not available for the specified check-in or check-out date.");
+            if (type != null && hotel.hasRoomsOfType(type)) {
+                offerWaitlist(hotel, guestName, type, checkIn, checkOut);
+            }
             return;
         }
 
-        room.bookRoom(checkIn, checkOut);
-        hotel.addReservation(new Reservation(guestName, room, checkIn, checkOut));
-        System.out.println("Reservation added successfully.");
+        System.out.println("Reservation " + reservation.getId() + " added successfully for room " + reservation.getRoom().getName() + ".");
+    }
+
+    /**
+     * Offers to put a request that could not be booked on the hotel's waitlist for any room of the type,
+     * to be booked automatically when a cancellation frees nights it fits into.
+     *
+     * @param hotel The hotel that had no room available.
+     * @param guestName The name of the guest.
+     * @param type The type of room requested.
+     * @param checkIn The check-in date.
+     * @param checkOut The check-out date.
+     */
+    private void offerWaitlist(Hotel hotel, String guestName, Class<? extends Room> type, LocalDate checkIn,
+                               LocalDate checkOut) {
+        System.out.print("Join the waitlist for any " + type.getSimpleName() + "? (Y/N): ");
+        String answer = scanner.next();
+        scanner.nextLine();
+        if (!answer.equalsIgnoreCase("Y")) {
+            return;
+        }
+        int priority = getIntInput("Enter waitlist priority (higher is served first, 0 for normal): ");
+        WaitlistEntry entry;
+        try {
+            entry = hotel.bookOrWait(guestName, type, checkIn, checkOut, priority);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Could not join the waitlist. " + e.getMessage());
+            return;
+        }
+        if (entry.isFulfilled()) {
+            Reservation reservation = entry.getReservation();
+            System.out.println("A room has just become available. Reservation " + reservation.getId()
+                    + " added successfully for room " + reservation.getRoom().getName() + ".");
+        } else {
+            System.out.println("Added to the waitlist. The reservation will be made automatically when a room frees up ("
+                    + hotel.getWaitlistSize() + " waiting).");
+        }
     }
 
     /**
@@ -98,15 +160,32 @@ public class SimulateBookings {
         System.out.print("Enter guest name to cancel reservation: ");
         String guestName = scanner.nextLine();
 
-        Reservation reservation = hotel.getReservation(guestName);
-        if (reservation == null) {
+        List<Reservation> reservations = hotel.getReservations(guestName);
+        if (reservations.isEmpty()) {
             System.out.println("Reservation not found.");
             return;
         }
 
-        reservation.getRoom().cancelBooking(reservation.getCheckIn(), reservation.getCheckOut());
-        hotel.removeReservation(guestName);
+        long id = reservations.get(0).getId();
+        if (reservations.size() > 1) {
+            for (Reservation reservation : reservations) {
+                System.out.println("[" + reservation.getId() + "] " + reservation.getRoom().getName() + " from "
+                        + reservation.getCheckIn() + " to " + reservation.getCheckOut());
+            }
+            id = getLongInput("Enter the id of the reservation to cancel: ");
+        }
+
+        Reservation selected = hotel.getReservation(id);
+        int waiting = hotel.getWaitlistSize();
+        if (selected == null || !selected.getGuestName().equals(guestName) || hotel.cancelReservation(id) == null) {
+            System.out.println("Reservation not found.");
+            return;
+        }
         System.out.println("Reservation cancelled successfully.");
+        int fulfilled = waiting - hotel.getWaitlistSize();
+        if (fulfilled > 0) {
+            System.out.println(fulfilled + " waiting request(s) were booked into the freed nights.");
+        }
     }
 
     /**
@@ -137,6 +216,23 @@ public class SimulateBookings {
         }
     }
 
+    /**
+     * Prompts the user for a long integer input.
+     *
+     * @param prompt The prompt message for the input.
+     * @return The long value input by the user.
+     */
+    private long getLongInput(String prompt) {
+        System.out.print(prompt);
+        while (!scanner.hasNextLong()) {
+            System.out.print("Invalid input. " + prompt);
+            scanner.next();
+        }
+        long value = scanner.nextLong();
+        scanner.nextLine();
+        return value;
+    }
+
     /**
      * Prompts the user for an integer input.
      *
@@ -0,0 +1,401 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Saves and loads the complete state of all hotels in a compact, versioned binary layout.
+ * A snapshot records the journal position it covers, so on startup only the journal
+ * records after that position need to be replayed.
+ *
+ * The layout is:
+ * [int magic][int version][long journal position]
+ * [int string count] then each string as [short length][UTF-8 bytes]
+ * [int hotel count] then for each hotel
+ *   [int name][double base price][int room count][int reservation count]
+ *   rooms as [byte type][int name][double price], followed before version 8 by
+ *   [long calendar origin][int word count][long words...],
+ *   where the type is 0 for standard and 1 for deluxe, plus COMPACT_FLAG for rooms stored in a RoomTable
+ *   [int detached room count] then rooms in the same layout that were removed from the hotel
+ *   but are still referenced by past reservations
+ *   reservations as fixed-width [long id][int guest][int room index][int check-in day][int check-out day][double total price],
+ *   without the id before version 5
+ *   [long rate origin][int rate count][double multipliers...] from version 4 on
+ *   [long last reservation id] from version 6 on, so that ids of cancelled reservations are never reused
+ *   [int waitlist count] then waiting requests as [long sequence][int guest][byte type][int check-in day]
+ *   [int check-out day][int priority], and [long last waitlist sequence], from version 7 on
+ * [int crc32 of everything before it]
+ * Names are indexes into the string table. Snapshots are loaded through a memory-mapped file.
+ *
+ * Room calendars are not saved but rebuilt from the restored reservations. A booking claims its
+ * room's nights before it takes the hotel's lock, so a saved calendar could already hold the nights
+ * of a reservation that is only journaled after the snapshot's position.
+ */
+public class Snapshot {
+    private static final int MAGIC = 0x48544C53;
+    private static final int VERSION = 8;
+    private static final int OLDEST_VERSION = 2;
+    private static final byte STANDARD_ROOM = 0;
+    private static final byte DELUXE_ROOM = 1;
+    private static final byte COMPACT_FLAG = 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private Snapshot(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes a snapshot of the hotels, replacing any previous snapshot at the path only
+     * once the new one is completely written and synced.
+     * Every hotel's lock is held while the journal position is read and the hotels are written,
+     * and every change to a hotel is journaled under its lock, so the snapshot contains exactly
+     * the changes journaled before the position it records, however busy the hotels are.
+     *
+     * @param path    the snapshot file
+     * @param hotels  the live list of hotels to save, to which hotels may be added meanwhile
+     * @param journal the journal the hotels' changes are written to
+     * @return the journal position covered by the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static long write(Path path, List<Hotel> hotels, Journal journal) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        long position;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Snapshot snapshot = new Snapshot(channel);
+            do {
+                position = snapshot.writeLocked(new ArrayList<>(hotels), 0, hotels, journal);
+            } while (position < 0);
+            journal.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return position;
+    }
+
+    /**
+     * Loads the hotels saved in a snapshot and adds them to the list.
+     *
+     * @param path   the snapshot file
+     * @param hotels the list to add the loaded hotels to
+     * @return the journal position covered by the snapshot
+     * @throws IOException if the snapshot cannot be read or is corrupt
+     */
+    public static long load(Path path, List<Hotel> hotels) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE || size < 20) {
+                throw new IOException("Snapshot has an invalid size: " + size);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 checksum = new CRC32();
+            checksum.update(map.duplicate().limit((int) size - 4));
+            if (map.getInt((int) size - 4) != (int) checksum.getValue()) {
+                throw new IOException("Snapshot checksum does not match");
+            }
+            int version;
+            if (map.getInt() != MAGIC || (version = map.getInt()) < OLDEST_VERSION || version > VERSION) {
+                throw new IOException("Snapshot has an unknown format");
+            }
+            long journalPosition = map.getLong();
+
+            String[] strings = new String[map.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[map.getShort() & 0xFFFF];
+                map.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            int hotelCount = map.getInt();
+            List<Hotel> loaded = new ArrayList<>(hotelCount);
+            HashMap<Integer, LocalDate> dates = new HashMap<>();
+            for (int h = 0; h < hotelCount; h++) {
+                loaded.add(readHotel(map, strings, dates, version));
+            }
+            hotels.addAll(loaded);
+            return journalPosition;
+        }
+    }
+
+    /**
+     * Reads one hotel, its rooms and its reservations, booking each reservation's nights in its room.
+     * Reservation dates are shared through the given cache, since many stays start
+     * and end on the same days.
+     */
+    private static Hotel readHotel(ByteBuffer map, String[] strings, HashMap<Integer, LocalDate> dates, int version) {
+        Hotel hotel = new Hotel(strings[map.getInt()], map.getDouble());
+        Room[] rooms = new Room[map.getInt()];
+        int reservationCount = map.getInt();
+
+        int attached = rooms.length;
+        for (int r = 0; r < attached; r++) {
+            rooms[r] = readRoom(map, strings, hotel, version);
+        }
+        int detached = map.getInt();
+        rooms = Arrays.copyOf(rooms, attached + detached);
+        for (int r = attached; r < rooms.length; r++) {
+            rooms[r] = readRoom(map, strings, null, version);
+            hotel.addDetachedRoom(rooms[r]);
+        }
+
+        for (int i = 0; i < reservationCount; i++) {
+            long id = version >= 5 ? map.getLong() : 0;
+            String guestName = strings[map.getInt()];
+            Room room = rooms[map.getInt()];
+            LocalDate checkIn = dates.computeIfAbsent(map.getInt(), LocalDate::ofEpochDay);
+            LocalDate checkOut = dates.computeIfAbsent(map.getInt(), LocalDate::ofEpochDay);
+            room.bookRoom(checkIn, checkOut);
+            hotel.addReservation(new Reservation(id, guestName, room, checkIn, checkOut, map.getDouble()));
+        }
+
+        if (version >= 4) {
+            long rateOrigin = map.getLong();
+            double[] multipliers = new double[map.getInt()];
+            map.asDoubleBuffer().get(multipliers);
+            map.position(map.position() + multipliers.length * Double.BYTES);
+            hotel.getRates().setMultipliers(rateOrigin, multipliers);
+        }
+        if (version >= 6) {
+            hotel.restoreLastReservationId(map.getLong());
+        }
+        if (version >= 7) {
+            int waiting = map.getInt();
+            for (int i = 0; i < waiting; i++) {
+                long sequence = map.getLong();
+                String guestName = strings[map.getInt()];
+                Class<? extends Room> type = map.get() == DELUXE_ROOM ? DeluxeRoom.class : StandardRoom.class;
+                LocalDate checkIn = dates.computeIfAbsent(map.getInt(), LocalDate::ofEpochDay);
+                LocalDate checkOut = dates.computeIfAbsent(map.getInt(), LocalDate::ofEpochDay);
+                hotel.restoreWaitlistEntry(guestName, type, checkIn, checkOut, map.getInt(), sequence);
+            }
+            hotel.restoreLastWaitlistSequence(map.getLong());
+        }
+        return hotel;
+    }
+
+    /**
+     * Reads one room and adds it to the hotel, if one is given. The calendar saved before version 8
+     * is skipped. Rooms that were stored in a RoomTable are added back into the hotel's table;
+     * detached rooms are always restored as standalone rooms.
+     */
+    private static Room readRoom(ByteBuffer map, String[] strings, Hotel hotel, int version) {
+        byte type = map.get();
+        String name = strings[map.getInt()];
+        double price = map.getDouble();
+        boolean deluxe = (type & ~COMPACT_FLAG) == DELUXE_ROOM;
+        Room room;
+        if (hotel != null && (type & COMPACT_FLAG) != 0) {
+            room = hotel.addCompactRoom(deluxe, name, price);
+        } else {
+            room = deluxe ? new DeluxeRoom(name, price) : new StandardRoom(name, price);
+            if (hotel != null) {
+                hotel.addRoom(room, false);
+            }
+        }
+        if (version < 8) {
+            map.getLong();
+            int words = map.getInt();
+            map.position(map.position() + words * Long.BYTES);
+        }
+        return room;
+    }
+
+    /**
+     * Takes the lock of each hotel from the given index on, then reads the journal position and
+     * writes the hotels. A hotel is registered before its creation is journaled, so if a hotel was
+     * added to the live list since it was copied, nothing is written and the caller tries again.
+     *
+     * @return the journal position covered by the written hotels, or -1 if hotels were added meanwhile
+     */
+    private long writeLocked(List<Hotel> hotels, int index, List<Hotel> live, Journal journal) throws IOException {
+        if (index < hotels.size()) {
+            synchronized (hotels.get(index)) {
+                return writeLocked(hotels, index + 1, live, journal);
+            }
+        }
+        long position = journal.getPosition();
+        if (live.size() != hotels.size()) {
+            return -1;
+        }
+        writeHotels(hotels, position);
+        return position;
+    }
+
+    /**
+     * Writes the header, string table, hotels and checksum.
+     * The caller holds the lock of every hotel.
+     */
+    private void writeHotels(List<Hotel> hotels, long journalPosition) throws IOException {
+        HashMap<String, Integer> stringIndexes = new HashMap<>();
+        ArrayList<String> strings = new ArrayList<>();
+        for (Hotel hotel : hotels) {
+            intern(hotel.getName(), stringIndexes, strings);
+            for (Room room : hotel.getRooms()) {
+                intern(room.getName(), stringIndexes, strings);
+            }
+            for (Reservation reservation : hotel.getReservations()) {
+                intern(reservation.getGuestName(), stringIndexes, strings);
+                intern(reservation.getRoom().getName(), stringIndexes, strings);
+            }
+            for (WaitlistEntry entry : hotel.getWaitlist().entries()) {
+                intern(entry.getGuestName(), stringIndexes, strings);
+            }
+        }
+
+        ensureCapacity(20);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(journalPosition).putInt(strings.size());
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IOException("Cannot save a string of " + bytes.length + " bytes");
+            }
+            ensureCapacity(2 + bytes.length);
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+
+        ensureCapacity(4);
+        buffer.putInt(hotels.size());
+        for (Hotel hotel : hotels) {
+            writeHotel(hotel, stringIndexes);
+        }
+
+        flush();
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Gets the epoch day of a date, or throws IOException if it does not fit the four bytes saved for it.
+     */
+    private static int epochDay(LocalDate date) throws IOException {
+        long day = date.toEpochDay();
+        if (day != (int) day) {
+            throw new IOException("Cannot save the date " + date);
+        }
+        return (int) day;
+    }
+
+    /**
+     * Writes one hotel, its rooms and its reservations.
+     * The caller holds the hotel's lock.
+     */
+    private void writeHotel(Hotel hotel, HashMap<String, Integer> stringIndexes) throws IOException {
+        ArrayList<Room> rooms = hotel.getRooms();
+        Collection<Reservation> reservations = hotel.getReservations();
+        ensureCapacity(24);
+        buffer.putInt(stringIndexes.get(hotel.getName()))
+                .putDouble(hotel.getBasePrice())
+                .putInt(rooms.size())
+                .putInt(reservations.size());
+
+        HashMap<Room, Integer> roomIndexes = new HashMap<>();
+        for (Room room : rooms) {
+            roomIndexes.put(room, roomIndexes.size());
+            writeRoom(room, stringIndexes);
+        }
+        ArrayList<Room> detached = new ArrayList<>();
+        for (Reservation reservation : reservations) {
+            if (roomIndexes.putIfAbsent(reservation.getRoom(), roomIndexes.size()) == null) {
+                detached.add(reservation.getRoom());
+            }
+        }
+        ensureCapacity(4);
+        buffer.putInt(detached.size());
+        for (Room room : detached) {
+            writeRoom(room, stringIndexes);
+        }
+
+        for (Reservation reservation : reservations) {
+            ensureCapacity(32);
+            buffer.putLong(reservation.getId())
+                    .putInt(stringIndexes.get(reservation.getGuestName()))
+                    .putInt(roomIndexes.get(reservation.getRoom()))
+                    .putInt(epochDay(reservation.getCheckIn()))
+                    .putInt(epochDay(reservation.getCheckOut()))
+                    .putDouble(reservation.getTotalPrice());
+        }
+
+        RateCalendar rates = hotel.getRates();
+        double[] multipliers = rates.getMultipliers();
+        ensureCapacity(12);
+        buffer.putLong(rates.getOrigin()).putInt(multipliers.length);
+        for (double multiplier : multipliers) {
+            ensureCapacity(Double.BYTES);
+            buffer.putDouble(multiplier);
+        }
+        ensureCapacity(8);
+        buffer.putLong(hotel.getLastReservationId());
+
+        Waitlist waitlist = hotel.getWaitlist();
+        ensureCapacity(4);
+        buffer.putInt(waitlist.size());
+        for (WaitlistEntry entry : waitlist.entries()) {
+            ensureCapacity(29);
+            buffer.putLong(entry.getSequence())
+                    .putInt(stringIndexes.get(entry.getGuestName()))
+                    .put(entry.getType() == DeluxeRoom.class ? DELUXE_ROOM : STANDARD_ROOM)
+                    .putInt(epochDay(entry.getCheckIn()))
+                    .putInt(epochDay(entry.getCheckOut()))
+                    .putInt(entry.getPriority());
+        }
+        ensureCapacity(8);
+        buffer.putLong(waitlist.getLastSequence());
+    }
+
+    /**
+     * Writes one room.
+     */
+    private void writeRoom(Room room, HashMap<String, Integer> stringIndexes) throws IOException {
+        ensureCapacity(13);
+        buffer.put((byte) ((room instanceof DeluxeRoom ? DELUXE_ROOM : STANDARD_ROOM) | (room.isCompact() ? COMPACT_FLAG : 0)))
+                .putInt(stringIndexes.get(room.getName()))
+                .putDouble(room.getPricePerNight());
+    }
+
+    private static void intern(String value, HashMap<String, Integer> indexes, ArrayList<String> strings) {
+        if (indexes.putIfAbsent(value, strings.size()) == null) {
+            strings.add(value);
+        }
+    }
+
+    /**
+     * Flushes the buffer if it cannot take the given number of additional bytes.
+     */
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the file, adding them to the running checksum.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -3,8 +3,6 @@
  * Inherits from the Room class.
  */
 public class StandardRoom extends Room {
-    private double pricePerNight;
-
     /**
      * Constructs a new StandardRoom with the specified name and price per night.
      *
@@ -13,26 +11,15 @@ public class StandardRoom extends Room {
      */
     public StandardRoom(String name, double pricePerNight) {
         super(name, pricePerNight);
-        this.pricePerNight = pricePerNight;
-    }
-
-    /**
-     * Gets the price per night for the standard room.
-     *
-     * @return the price per night for the standard room
-     */
-    @Override
-    public double getPricePerNight() {
-        return pricePerNight;
     }
 
     /**
-     * Sets the price per night for the standard room.
+     * Constructs a view over a standard room stored in a RoomTable.
      *
-     * @param price the new price per night for the standard room
+     * @param table the table holding the room
+     * @param slot the slot of the room in the table
      */
-    @Override
-    public void setPricePerNight(double price) {
-        this.pricePerNight = price;
+    public StandardRoom(RoomTable table, int slot) {
+        super(table, slot);
     }
 }
@@ -1,25 +1,29 @@
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Scanner;
-import java.util.stream.Collectors;
 
 /**
  * This class provides functionality to view detailed information about hotels.
  * It allows the user to select a hotel and view both high-level and low-level information
  * including room status, room details, and reservation details.
+ * Room lists and totals are read from a snapshot of the hotel, which never holds up bookings,
+ * while dates and guests are looked up through the hotel's indexes rather than by scanning
+ * every reservation.
  */
 public class ViewHotelInfo {
-    private ArrayList<Hotel> hotels;
+    private HotelRegistry registry;
     private Scanner scanner;
 
     /**
-     * Constructs a ViewHotelInfo object with a list of hotels and a scanner for user input.
+     * Constructs a ViewHotelInfo object with the hotel registry and a scanner for user input.
      * 
-     * @param hotels the list of hotels to view information for
+     * @param registry the registry of hotels to view information for
      * @param scanner the scanner to read user input
      */
-    public ViewHotelInfo(ArrayList<Hotel> hotels, Scanner scanner) {
-        this.hotels = hotels;
+    public ViewHotelInfo(HotelRegistry registry, Scanner scanner) {
+        this.registry = registry;
         this.scanner = scanner;
     }
 
@@ -40,6 +44,7 @@ public class ViewHotelInfo {
      * @return the selected hotel, or null if no valid selection is made
      */
     private Hotel selectHotel() {
+        List<Hotel> hotels = registry.getHotels();
         if (hotels.isEmpty()) {
             System.out.println("No hotels available.");
             return null;
@@ -101,12 +106,10 @@ public class ViewHotelInfo {
      * @param hotel the hotel to view high-level information for
      */
     private void viewHighLevelInfo(Hotel hotel) {
-        int totalRooms = hotel.getRooms().size();
-        double estimatedEarnings = hotel.getReservations().stream()
-            .mapToDouble(reservation -> reservation.getRoom().getPricePerNight() * 
-                          (reservation.getCheckOut().toEpochDay() - reservation.getCheckIn().toEpochDay()))
-            .sum();
-        System.out.println("Hotel Name: " + hotel.getName());
+        HotelSnapshot snapshot = hotel.snapshot();
+        int totalRooms = snapshot.getRooms().size();
+        double estimatedEarnings = snapshot.getEstimatedEarnings();
+        System.out.println("Hotel Name: " + snapshot.getName());
         System.out.println("Total Number of Rooms: " + totalRooms);
         System.out.println("Estimated Earnings for the Month: " + estimatedEarnings);
     }
@@ -156,8 +159,8 @@ public class ViewHotelInfo {
      */
     private void viewRoomsStatus(Hotel hotel) {
         LocalDate date = getDateInput("Enter the date (YYYY-MM-DD) to check room availability: ");
-        long availableRooms = hotel.getRooms().stream().filter(room -> room.isAvailable(date)).count();
-        long bookedRooms = hotel.getRooms().size() - availableRooms;
+        int bookedRooms = hotel.getBookedRooms(date);
+        int availableRooms = Math.max(0, hotel.snapshot().getRooms().size() - bookedRooms);
         System.out.println("Date: " + date);
         System.out.println("Total Available Rooms: " + availableRooms);
         System.out.println("Total Booked Rooms: " + bookedRooms);
@@ -170,50 +173,56 @@ public class ViewHotelInfo {
      * @param hotel the hotel to view room details for
      */
     private void viewRoomDetails(Hotel hotel) {
-        for (int i = 0; i < hotel.getRooms().size(); i++) {
-            Room room = hotel.getRooms().get(i);
-            System.out.println("[" + (i + 1) + "] " + room.getName() + " {Status: " + (room.isAvailable(LocalDate.now()) ? "Available" : "Booked") + ", Price: " + room.getPricePerNight() + ", Availability: " + getRoomAvailability(room) + "}");
+        List<Room> rooms = hotel.snapshot().getRooms();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            String availability = getRoomAvailability(room, today);
+            System.out.println("[" + (i + 1) + "] " + room.getName() + " {Status: " + availability + ", Price: " + room.getPricePerNight() + ", Availability: " + availability + "}");
         }
 
         int choice = getIntInput("Select a room to view details (or 0 to return): ");
         if (choice == 0) return;
 
-        if (choice < 1 || choice > hotel.getRooms().size()) {
+        if (choice < 1 || choice > rooms.size()) {
             System.out.println("Invalid selection.");
             return;
         }
 
-        Room selectedRoom = hotel.getRooms().get(choice - 1);
-        viewReservationsForRoom(selectedRoom, hotel);
+        viewReservationsForRoom(rooms.get(choice - 1), hotel);
     }
 
     /**
-     * Returns the availability status of the room as a string.
+     * Returns the availability status of a room on a date as a string.
      * 
      * @param room the room to check availability for
+     * @param date the date to check availability for
      * @return "Available" if the room is available, "Booked" otherwise
      */
-    private String getRoomAvailability(Room room) {
-        return room.isAvailable(LocalDate.now()) ? "Available" : "Booked";
+    private String getRoomAvailability(Room room, LocalDate date) {
+        return room.isAvailable(date) ? "Available" : "Booked";
     }
 
     /**
-     * Displays the reservations for a selected room.
+     * Displays the reservations for a selected room and the room's total earnings.
+     * The reservations are copied under the room's lock, so bookings cannot change them while they are printed.
      * 
      * @param room the room to view reservations for
      * @param hotel the hotel containing the room
      */
     private void viewReservationsForRoom(Room room, Hotel hotel) {
-        ArrayList<Reservation> reservations = hotel.getReservations().stream()
-            .filter(reservation -> reservation.getRoom().equals(room))
-            .collect(Collectors.toCollection(ArrayList::new));
+        Collection<Reservation> reservations;
+        synchronized (room) {
+            reservations = new ArrayList<>(room.getReservations());
+        }
 
         if (reservations.isEmpty()) {
             System.out.println("There are no reservations for this room.");
         } else {
             for (Reservation reservation : reservations) {
-                System.out.println("Reservation for " + reservation.getGuestName() + " from " + reservation.getCheckIn() + " to " + reservation.getCheckOut() + ", Total Price: " + (reservation.getRoom().getPricePerNight() * (reservation.getCheckOut().toEpochDay() - reservation.getCheckIn().toEpochDay())));
+                System.out.println("Reservation for " + reservation.getGuestName() + " from " + reservation.getCheckIn() + " to " + reservation.getCheckOut() + ", Total Price: " + reservation.getTotalPrice());
             }
+            System.out.println("Total Earnings for this Room: " + hotel.getRoomEarnings(room));
         }
     }
 
@@ -226,18 +235,25 @@ public class ViewHotelInfo {
         System.out.print("Enter guest name to view reservation details: ");
         String guestName = scanner.nextLine();
 
-        Reservation reservation = hotel.getReservation(guestName);
-        if (reservation == null) {
+        List<Reservation> reservations = hotel.getReservations(guestName);
+        if (reservations.isEmpty()) {
             System.out.println("Reservation not found.");
             return;
         }
 
-        System.out.println("Reservation Details:");
-        System.out.println("Guest Name: " + reservation.getGuestName());
-        System.out.println("Room: " + reservation.getRoom().getName());
-        System.out.println("Check-In Date: " + reservation.getCheckIn());
-        System.out.println("Check-Out Date: " + reservation.getCheckOut());
-        System.out.println("Total Price: " + (reservation.getRoom().getPricePerNight() * (reservation.getCheckOut().toEpochDay() - reservation.getCheckIn().toEpochDay())));
+        for (Reservation reservation : reservations) {
+            System.out.println("Reservation Details:");
+            System.out.println("Reservation ID: " + reservation.getId());
+            System.out.println("Guest Name: " + reservation.getGuestName());
+            System.out.println("Room: " + reservation.getRoom().getName());
+            System.out.println("Check-In Date: " + reservation.getCheckIn());
+            System.out.println("Check-Out Date: " + reservation.getCheckOut());
+            System.out.println("Current Nightly Rates:");
+            for (LocalDate night = reservation.getCheckIn(); night.isBefore(reservation.getCheckOut()); night = night.plusDays(1)) {
+                System.out.println("  " + night + ": " + hotel.getNightlyRate(reservation.getRoom(), night));
+            }
+            System.out.println("Total Price: " + reservation.getTotalPrice());
+        }
     }
 
     /**
@@ -0,0 +1,204 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Holds the requests waiting for a room of a hotel, indexed by room type and then by check-in night.
+ * When nights of a room are freed, only the requests of the room's type that check in between the
+ * start of the room's free run of nights and the end of the freed nights are examined, rather than
+ * every waiting request. Requests are also kept by sequence number, which the journal refers to them by.
+ * The caller synchronizes access.
+ */
+public class Waitlist {
+    private static final Comparator<WaitlistEntry> SERVICE_ORDER =
+            Comparator.comparingInt(WaitlistEntry::getPriority).reversed()
+                    .thenComparingLong(WaitlistEntry::getSequence);
+
+    private HashMap<Class<? extends Room>, TreeMap<Long, ArrayList<WaitlistEntry>>> byType = new HashMap<>();
+    private HashMap<Long, WaitlistEntry> bySequence = new HashMap<>();
+    private long lastSequence;
+
+    /**
+     * Adds a request to the waitlist.
+     *
+     * @param guestName the name of the guest
+     * @param type      the type of room wanted
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param priority  the priority of the request; higher values are served first
+     * @return the new entry
+     */
+    public WaitlistEntry add(String guestName, Class<? extends Room> type, LocalDate checkIn, LocalDate checkOut,
+                             int priority) {
+        return insert(new WaitlistEntry(guestName, type, checkIn, checkOut, priority, ++lastSequence));
+    }
+
+    /**
+     * Adds a request that keeps the sequence number it was given before, for example when
+     * restoring a snapshot or replaying the journal.
+     *
+     * @param guestName the name of the guest
+     * @param type      the type of room wanted
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param priority  the priority of the request
+     * @param sequence  the sequence number of the request
+     * @return the restored entry, or the entry already waiting with the sequence number
+     */
+    public WaitlistEntry restore(String guestName, Class<? extends Room> type, LocalDate checkIn, LocalDate checkOut,
+                                 int priority, long sequence) {
+        lastSequence = Math.max(lastSequence, sequence);
+        WaitlistEntry waiting = bySequence.get(sequence);
+        if (waiting != null) {
+            return waiting;
+        }
+        return insert(new WaitlistEntry(guestName, type, checkIn, checkOut, priority, sequence));
+    }
+
+    /**
+     * Indexes a new entry by type, check-in night and sequence number.
+     */
+    private WaitlistEntry insert(WaitlistEntry entry) {
+        byType.computeIfAbsent(entry.getType(), t -> new TreeMap<>())
+                .computeIfAbsent(entry.getCheckIn().toEpochDay(), night -> new ArrayList<>(1)).add(entry);
+        bySequence.put(entry.getSequence(), entry);
+        return entry;
+    }
+
+    /**
+     * Gets a waiting request by its sequence number.
+     *
+     * @param sequence the sequence number
+     * @return the entry, or null if no request with the number is waiting
+     */
+    public WaitlistEntry get(long sequence) {
+        return bySequence.get(sequence);
+    }
+
+    /**
+     * Gets every waiting request, in no particular order.
+     *
+     * @return a read-only view of the entries
+     */
+    public Collection<WaitlistEntry> entries() {
+        return Collections.unmodifiableCollection(bySequence.values());
+    }
+
+    /**
+     * Gets the sequence number given to the most recent request, including requests no longer waiting.
+     *
+     * @return the last sequence number, or 0 if no request has joined
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Restores the sequence saved with a snapshot, so that new requests never reuse a number.
+     *
+     * @param sequence the last sequence number that was given out
+     */
+    public void restoreLastSequence(long sequence) {
+        lastSequence = Math.max(lastSequence, sequence);
+    }
+
+    /**
+     * Removes a request from the waitlist.
+     *
+     * @param entry the entry to remove
+     * @return true if the entry was waiting, false otherwise
+     */
+    public boolean remove(WaitlistEntry entry) {
+        TreeMap<Long, ArrayList<WaitlistEntry>> byCheckIn = byType.get(entry.getType());
+        if (byCheckIn == null) {
+            return false;
+        }
+        long night = entry.getCheckIn().toEpochDay();
+        ArrayList<WaitlistEntry> entries = byCheckIn.get(night);
+        if (entries == null || !entries.remove(entry)) {
+            return false;
+        }
+        if (entries.isEmpty()) {
+            byCheckIn.remove(night);
+            if (byCheckIn.isEmpty()) {
+                byType.remove(entry.getType());
+            }
+        }
+        bySequence.remove(entry.getSequence());
+        return true;
+    }
+
+    /**
+     * Removes every request checking in before a night, since it can no longer be booked.
+     *
+     * @param night the first check-in night to keep, as an epoch day
+     * @return the number of requests removed
+     */
+    public int removeCheckingInBefore(long night) {
+        int removed = 0;
+        for (TreeMap<Long, ArrayList<WaitlistEntry>> byCheckIn : byType.values()) {
+            Map<Long, ArrayList<WaitlistEntry>> expired = byCheckIn.headMap(night, false);
+            for (ArrayList<WaitlistEntry> entries : expired.values()) {
+                for (WaitlistEntry entry : entries) {
+                    bySequence.remove(entry.getSequence());
+                    removed++;
+                }
+            }
+            expired.clear();
+        }
+        byType.values().removeIf(TreeMap::isEmpty);
+        return removed;
+    }
+
+    /**
+     * Finds the waiting requests for a type of room whose stay lies within a run of free nights,
+     * in the order they should be served.
+     *
+     * @param type the type of room
+     * @param from the first free night, or Long.MIN_VALUE if every earlier night is free
+     * @param to   the day after the last free night, or Long.MAX_VALUE if every later night is free
+     * @return the fitting requests, highest priority first
+     */
+    public List<WaitlistEntry> findFitting(Class<? extends Room> type, long from, long to) {
+        TreeMap<Long, ArrayList<WaitlistEntry>> byCheckIn = byType.get(type);
+        ArrayList<WaitlistEntry> fitting = new ArrayList<>();
+        if (byCheckIn == null) {
+            return fitting;
+        }
+        Map<Long, ArrayList<WaitlistEntry>> candidates = byCheckIn.subMap(from, true, to, false);
+        for (ArrayList<WaitlistEntry> entries : candidates.values()) {
+            for (WaitlistEntry entry : entries) {
+                long checkOut = entry.getCheckOut().toEpochDay();
+                if (checkOut <= to) {
+                    fitting.add(entry);
+                }
+            }
+        }
+        fitting.sort(SERVICE_ORDER);
+        return fitting;
+    }
+
+    /**
+     * Gets the number of waiting requests.
+     *
+     * @return the number of requests
+     */
+    public int size() {
+        return bySequence.size();
+    }
+
+    /**
+     * Checks if no request is waiting.
+     *
+     * @return true if the waitlist is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return bySequence.isEmpty();
+    }
+}
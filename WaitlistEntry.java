@@ -0,0 +1,134 @@
+import java.time.LocalDate;
+
+/**
+ * A guest's request for any room of a type for a stay, waiting on a hotel's waitlist until
+ * a cancellation frees nights it fits into. Requests with a higher priority are served first,
+ * and requests of equal priority in the order they joined.
+ */
+public class WaitlistEntry {
+    private String guestName;
+    private Class<? extends Room> type;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+    private int priority;
+    private long sequence;
+    private volatile Reservation reservation;
+
+    /**
+     * Constructs a new WaitlistEntry.
+     *
+     * @param guestName the name of the guest
+     * @param type      the type of room wanted, such as StandardRoom.class or DeluxeRoom.class
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param priority  the priority of the request; higher values are served first
+     * @param sequence  the position of the request in the order requests joined the waitlist
+     */
+    public WaitlistEntry(String guestName, Class<? extends Room> type, LocalDate checkIn, LocalDate checkOut,
+                         int priority, long sequence) {
+        this.guestName = guestName;
+        this.type = type;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.priority = priority;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Gets the name of the guest.
+     *
+     * @return the guest's name
+     */
+    public String getGuestName() {
+        return guestName;
+    }
+
+    /**
+     * Gets the type of room wanted.
+     *
+     * @return the room type
+     */
+    public Class<? extends Room> getType() {
+        return type;
+    }
+
+    /**
+     * Gets the check-in date.
+     *
+     * @return the check-in date
+     */
+    public LocalDate getCheckIn() {
+        return checkIn;
+    }
+
+    /**
+     * Gets the check-out date.
+     *
+     * @return the check-out date
+     */
+    public LocalDate getCheckOut() {
+        return checkOut;
+    }
+
+    /**
+     * Gets the priority of the request.
+     *
+     * @return the priority
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Gets the position of the request in the order requests joined the waitlist.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Checks if the request has been booked.
+     *
+     * @return true if a reservation was made for the request, false if it is still waiting
+     */
+    public boolean isFulfilled() {
+        return reservation != null;
+    }
+
+    /**
+     * Gets the reservation made for the request.
+     *
+     * @return the reservation, or null if the request is still waiting
+     */
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    /**
+     * Records the reservation made for the request when a hotel books it.
+     *
+     * @param reservation the reservation
+     */
+    void fulfil(Reservation reservation) {
+        this.reservation = reservation;
+    }
+
+    /**
+     * Returns a string representation of the entry.
+     *
+     * @return a string representation of the entry
+     */
+    @Override
+    public String toString() {
+        return "WaitlistEntry{" +
+                "guestName='" + guestName + '\'' +
+                ", type=" + type.getSimpleName() +
+                ", checkIn=" + checkIn +
+                ", checkOut=" + checkOut +
+                ", priority=" + priority +
+                ", fulfilled=" + isFulfilled() +
+                '}';
+    }
+}
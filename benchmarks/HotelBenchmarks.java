@@ -0,0 +1,203 @@
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Micro-benchmarks for the booking, lookup and reporting hot paths.
+ * Every benchmark runs against a hotel filled to a given room count and reservation count,
+ * and reports the average time and the bytes allocated per operation.
+ *
+ * The hotel classes live in the default package, which JMH cannot generate code for,
+ * so this module carries its own harness with warmup and measurement iterations.
+ * Build and run it from the repository root with:
+ * javac -d out *.java benchmarks/*.java
+ * java -cp out HotelBenchmarks --rooms=50,500,5000 --reservations=1000,10000,100000 --filter=getRoom
+ */
+public class HotelBenchmarks {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 300_000_000L;
+    private static final int INPUTS = 4096;
+    private static final LocalDate START = LocalDate.of(2030, 1, 1);
+
+    private static volatile long sink;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final String filter;
+
+    private Hotel hotel;
+    private String[] roomNames;
+    private String[] guestNames;
+    private Room[] rooms;
+    private LocalDate[] checkIns;
+    private LocalDate[] checkOuts;
+
+    /**
+     * Constructs the benchmark runner.
+     *
+     * @param filter only benchmarks whose name contains this text are run
+     */
+    public HotelBenchmarks(String filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Runs every benchmark for each combination of room count and reservation count.
+     *
+     * @param args options of the form --rooms=a,b --reservations=x,y --filter=name
+     */
+    public static void main(String[] args) {
+        int[] roomCounts = {50, 500, 5000};
+        int[] reservationCounts = {1000, 10000, 100000};
+        String filter = "";
+        for (String arg : args) {
+            if (arg.startsWith("--rooms=")) {
+                roomCounts = parseCounts(arg.substring(8));
+            } else if (arg.startsWith("--reservations=")) {
+                reservationCounts = parseCounts(arg.substring(15));
+            } else if (arg.startsWith("--filter=")) {
+                filter = arg.substring(9);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        HotelBenchmarks benchmarks = new HotelBenchmarks(filter);
+        System.out.printf("%-28s %8s %13s %14s %12s%n", "Benchmark", "rooms", "reservations", "ns/op", "B/op");
+        for (int roomCount : roomCounts) {
+            for (int reservationCount : reservationCounts) {
+                benchmarks.runAll(roomCount, reservationCount);
+            }
+        }
+    }
+
+    /**
+     * Runs every selected benchmark against a freshly filled hotel.
+     *
+     * @param roomCount        the number of rooms in the hotel
+     * @param reservationCount the number of reservations to fill the hotel with
+     */
+    private void runAll(int roomCount, int reservationCount) {
+        setUp(roomCount, reservationCount);
+
+        run("Room.isAvailable(range)", roomCount, reservationCount,
+                i -> rooms[i].isAvailable(checkIns[i], checkOuts[i]) ? 1 : 0);
+        run("Room.bookRoom+cancelBooking", roomCount, reservationCount, i -> {
+            Room room = rooms[i];
+            room.bookRoom(checkIns[i], checkOuts[i]);
+            room.cancelBooking(checkIns[i], checkOuts[i]);
+            return 1;
+        });
+        run("Hotel.getRoom", roomCount, reservationCount,
+                i -> hotel.getRoom(roomNames[i]).hashCode());
+        run("Hotel.getReservation", roomCount, reservationCount, i -> {
+            Reservation reservation = hotel.getReservation(guestNames[i]);
+            return reservation == null ? 0 : 1;
+        });
+        run("Hotel.addRoom+removeRoom", roomCount, reservationCount, i -> {
+            hotel.addRoom(new StandardRoom("Benchmark Room", 1299.00));
+            return hotel.removeRoom("Benchmark Room") ? 1 : 0;
+        });
+        run("Hotel.getEstimatedEarnings", roomCount, reservationCount,
+                i -> (long) hotel.getEstimatedEarnings());
+    }
+
+    /**
+     * Builds a hotel with the given rooms and books stays until it holds the given
+     * number of reservations, then prepares the inputs cycled through by the benchmarks.
+     */
+    private void setUp(int roomCount, int reservationCount) {
+        Random random = new Random(42);
+        hotel = new Hotel("Benchmark Hotel", 1299.00);
+        for (int r = 1; r <= roomCount; r++) {
+            String name = "Room " + r;
+            hotel.addRoom(r % 5 == 0 ? new DeluxeRoom(name, 1299.00 * 1.2) : new StandardRoom(name, 1299.00));
+        }
+
+        int horizon = Math.max(540, (int) (4L * 3 * reservationCount / roomCount));
+        List<String> guests = new ArrayList<>(reservationCount);
+        while (guests.size() < reservationCount) {
+            Room room = hotel.getRoom("Room " + (1 + random.nextInt(roomCount)));
+            LocalDate checkIn = START.plusDays(random.nextInt(horizon));
+            String guest = "Guest " + guests.size();
+            if (hotel.book(guest, room, checkIn, checkIn.plusDays(1 + random.nextInt(5))) != null) {
+                guests.add(guest);
+            }
+        }
+
+        roomNames = new String[INPUTS];
+        guestNames = new String[INPUTS];
+        rooms = new Room[INPUTS];
+        checkIns = new LocalDate[INPUTS];
+        checkOuts = new LocalDate[INPUTS];
+        // Stays are drawn past the filled horizon so book+cancel never clears a real booking.
+        for (int i = 0; i < INPUTS; i++) {
+            roomNames[i] = "Room " + (1 + random.nextInt(roomCount));
+            guestNames[i] = guests.get(random.nextInt(guests.size()));
+            rooms[i] = hotel.getRoom(roomNames[i]);
+            checkIns[i] = START.plusDays(horizon + random.nextInt(horizon));
+            checkOuts[i] = checkIns[i].plusDays(1 + random.nextInt(7));
+        }
+    }
+
+    /**
+     * Warms up and then measures one benchmark, printing its average time and allocation per operation.
+     */
+    private void run(String name, int roomCount, int reservationCount, IntToLongFunction operation) {
+        if (!name.contains(filter)) {
+            return;
+        }
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iterate(operation);
+        }
+
+        long operations = 0;
+        long nanos = 0;
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long began = System.nanoTime();
+            operations += iterate(operation);
+            nanos += System.nanoTime() - began;
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-28s %8d %13d %14.1f %12.1f%n", name, roomCount, reservationCount,
+                (double) nanos / operations, (double) allocated / operations);
+    }
+
+    /**
+     * Calls the operation repeatedly for one iteration's worth of time.
+     *
+     * @return the number of operations performed
+     */
+    private static long iterate(IntToLongFunction operation) {
+        long deadline = System.nanoTime() + ITERATION_NANOS;
+        long operations = 0;
+        long result = 0;
+        do {
+            for (int i = 0; i < INPUTS; i++) {
+                result += operation.applyAsLong(i);
+            }
+            operations += INPUTS;
+        } while (System.nanoTime() < deadline);
+        sink = result;
+        return operations;
+    }
+
+    /**
+     * Parses a comma-separated list of counts.
+     */
+    private static int[] parseCounts(String value) {
+        String[] parts = value.split(",");
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i].trim());
+        }
+        return counts;
+    }
+}